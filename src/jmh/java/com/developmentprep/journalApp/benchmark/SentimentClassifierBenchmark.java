@@ -0,0 +1,60 @@
+package com.developmentprep.journalApp.benchmark;
+
+import com.developmentprep.journalApp.enums.Sentiment;
+import com.developmentprep.journalApp.utils.SentimentClassifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of classifying one entry with maximum-length (5000 character) content.
+ * Run with: mvn -Pbenchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SentimentClassifierBenchmark {
+
+    private static final String[] WORDS = {"today", "I", "went", "to", "the", "office", "and", "felt", "very",
+            "tired", "after", "a", "long", "meeting", "but", "dinner", "with", "friends", "was", "great", "not",
+            "worried", "about", "deadline", "grateful", "for", "help", "my", "sister", "called", "we", "laughed",
+            "walk", "in", "park", "weather", "cold", "coffee", "book", "reading", "project", "finally", "done"};
+
+    @Param("5000")
+    private int contentLength;
+
+    private String title;
+    private String content;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder(contentLength + 16);
+        int sentence = 0;
+        while (text.length() < contentLength) {
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            text.append(++sentence % 12 == 0 ? ". " : " ");
+        }
+        content = text.substring(0, contentLength);
+        title = "Long day at the office";
+    }
+
+    @Benchmark
+    public Sentiment classify() {
+        return SentimentClassifier.classify(title, content);
+    }
+}
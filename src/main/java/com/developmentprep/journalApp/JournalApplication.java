@@ -1,16 +1,21 @@
 package com.developmentprep.journalApp;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.data.mongodb.MongoTransactionManager;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
 @SpringBootApplication
 @EnableTransactionManagement
 @EnableScheduling
@@ -28,8 +33,16 @@ public class JournalApplication {
 
 	@Bean
 	@Profile("!test")
-	public RestTemplate restTemplate() {
-		return new RestTemplate();
+	public RestTemplate restTemplate(@Value("${journal.weather.http.connect-timeout-ms:1000}") long connectTimeoutMs,
+			@Value("${journal.weather.http.read-timeout-ms:2000}") long readTimeoutMs) {
+		// the JDK client keeps connections to a host alive and reuses them across requests
+		HttpClient httpClient = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(Duration.ofMillis(connectTimeoutMs))
+				.build();
+		JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+		requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+		return new RestTemplate(requestFactory);
 	}
 
 }
@@ -0,0 +1,93 @@
+package com.developmentprep.journalApp.bootstrap;
+
+import com.developmentprep.journalApp.enums.Sentiment;
+import com.developmentprep.journalApp.model.JournalEntryFilter;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Explains the per-user journal queries at startup and reports any that would not be
+ * answered from an index: a collection scan, or an in-memory sort of the matches.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "journal.query-plan-check.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryPlanCheck implements ApplicationRunner {
+
+    private final JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+
+    @Value("${journal.query-plan-check.fail-on-error:false}")
+    private boolean failOnError;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<String, JournalEntryFilter> queries = new LinkedHashMap<>();
+        queries.put("list", null);
+        queries.put("date range", new JournalEntryFilter(now.minusDays(30), now, null));
+        queries.put("sentiment", new JournalEntryFilter(null, null, Sentiment.HAPPY));
+        queries.put("sentiment and date range", new JournalEntryFilter(now.minusDays(30), now, Sentiment.HAPPY));
+
+        List<String> problems = new ArrayList<>();
+        for (Map.Entry<String, JournalEntryFilter> query : queries.entrySet()) {
+            try {
+                Document plan = journalEntryRepositoryImpl.explainPage(owner, query.getValue(), 21);
+                Document winningPlan = plan.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+                List<String> stages = new ArrayList<>();
+                collectStages(winningPlan, stages);
+                if (stages.contains("COLLSCAN") || stages.contains("SORT")) {
+                    problems.add(query.getKey() + " -> " + stages);
+                } else {
+                    log.info("Journal query '{}' plan: {}", query.getKey(), stages);
+                }
+            } catch (Exception e) {
+                log.warn("Could not explain journal query '{}'", query.getKey(), e);
+            }
+        }
+
+        if (!problems.isEmpty()) {
+            String message = "Journal queries not served by an index: " + problems;
+            if (failOnError) {
+                throw new IllegalStateException(message);
+            }
+            log.warn(message);
+        }
+    }
+
+    private void collectStages(Document plan, List<String> stages) {
+        // classic plans nest under inputStage(s); slot-based plans may wrap them in queryPlan
+        Document node = plan.containsKey("queryPlan") ? plan.get("queryPlan", Document.class) : plan;
+        String stage = node.getString("stage");
+        if ("IXSCAN".equals(stage)) {
+            stages.add(stage + "(" + node.getString("indexName") + ")");
+        } else if (stage != null) {
+            stages.add(stage);
+        }
+        if (node.containsKey("inputStage")) {
+            collectStages(node.get("inputStage", Document.class), stages);
+        }
+        if (node.containsKey("inputStages")) {
+            for (Document input : node.getList("inputStages", Document.class)) {
+                collectStages(input, stages);
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.developmentprep.journalApp.cache;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Turns values of one class into cached bytes and back, with a reader and writer built once and
+ * shared by all threads. Encoded values start with a header byte naming their format and
+ * compression, so a value is read back correctly whatever this node is configured to write.
+ * Values from before the header (plain JSON text) are still read.
+ *
+ * Layout: header, then for compressed values the uncompressed length (4 bytes, big-endian),
+ * then the payload.
+ */
+public final class CacheCodec<T> {
+
+    public enum Format {
+        JSON(new JsonFactory()),
+        SMILE(new SmileFactory()),
+        CBOR(new CBORFactory());
+
+        // java.time support for cached values such as dates
+        private final ObjectMapper mapper;
+
+        Format(JsonFactory factory) {
+            this.mapper = new ObjectMapper(factory).findAndRegisterModules();
+        }
+    }
+
+    public enum Compression {
+        NONE, DEFLATE, LZ4
+    }
+
+    // JSON text starts at or above this byte, header bytes stay below it
+    private static final int FIRST_TEXT_BYTE = 0x20;
+    private static final int LENGTH_BYTES = 4;
+
+    private static final LZ4Factory LZ4 = LZ4Factory.fastestInstance();
+
+    private final Class<T> type;
+    private final Format format;
+    private final Compression compression;
+    private final int compressMinBytes;
+    private final ObjectWriter writer;
+    private final ObjectReader[] readers;
+
+    public CacheCodec(Class<T> type, Format format, Compression compression, int compressMinBytes) {
+        this.type = type;
+        this.format = format;
+        this.compression = compression;
+        this.compressMinBytes = compressMinBytes;
+        this.writer = format.mapper.writerFor(type);
+        this.readers = new ObjectReader[Format.values().length];
+        for (Format f : Format.values()) {
+            readers[f.ordinal()] = f.mapper.readerFor(type);
+        }
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public Format getFormat() {
+        return format;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    public byte[] encode(T value) throws IOException {
+        byte[] payload = writer.writeValueAsBytes(value);
+        if (compression != Compression.NONE && payload.length >= compressMinBytes) {
+            byte[] compressed = compress(payload);
+            // incompressible payloads are stored as they are
+            if (compressed != null) {
+                return compressed;
+            }
+        }
+        byte[] encoded = new byte[payload.length + 1];
+        encoded[0] = header(format, Compression.NONE);
+        System.arraycopy(payload, 0, encoded, 1, payload.length);
+        return encoded;
+    }
+
+    public T decode(byte[] encoded) throws IOException {
+        if (encoded.length == 0) {
+            throw new IOException("Empty cached value");
+        }
+        int header = encoded[0] & 0xFF;
+        if (header >= FIRST_TEXT_BYTE) {
+            return readers[Format.JSON.ordinal()].readValue(encoded);
+        }
+        int formatIndex = header >> 2;
+        int compressionIndex = header & 0x3;
+        if (formatIndex >= Format.values().length || compressionIndex >= Compression.values().length) {
+            throw new IOException("Unknown cached value header " + header);
+        }
+        ObjectReader reader = readers[formatIndex];
+        Compression stored = Compression.values()[compressionIndex];
+        if (stored == Compression.NONE) {
+            return reader.readValue(encoded, 1, encoded.length - 1);
+        }
+        byte[] payload = decompress(stored, encoded);
+        return reader.readValue(payload);
+    }
+
+    private static byte header(Format format, Compression compression) {
+        return (byte) (format.ordinal() << 2 | compression.ordinal());
+    }
+
+    /**
+     * The complete encoded value, or null when compressing does not make it smaller.
+     */
+    private byte[] compress(byte[] payload) {
+        int offset = 1 + LENGTH_BYTES;
+        byte[] encoded;
+        int length;
+        if (compression == Compression.LZ4) {
+            LZ4Compressor compressor = LZ4.fastCompressor();
+            encoded = new byte[offset + compressor.maxCompressedLength(payload.length)];
+            length = offset + compressor.compress(payload, 0, payload.length, encoded, offset);
+        } else {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                deflater.setInput(payload);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2 + offset);
+                out.write(new byte[offset], 0, offset);
+                byte[] buffer = new byte[Math.min(payload.length, 8192)];
+                while (!deflater.finished()) {
+                    int n = deflater.deflate(buffer);
+                    out.write(buffer, 0, n);
+                }
+                encoded = out.toByteArray();
+                length = encoded.length;
+            } finally {
+                deflater.end();
+            }
+        }
+        if (length >= payload.length + 1) {
+            return null;
+        }
+        encoded[0] = header(format, compression);
+        encoded[1] = (byte) (payload.length >>> 24);
+        encoded[2] = (byte) (payload.length >>> 16);
+        encoded[3] = (byte) (payload.length >>> 8);
+        encoded[4] = (byte) payload.length;
+        return length == encoded.length ? encoded : Arrays.copyOf(encoded, length);
+    }
+
+    private static byte[] decompress(Compression stored, byte[] encoded) throws IOException {
+        if (encoded.length < 1 + LENGTH_BYTES) {
+            throw new IOException("Truncated cached value");
+        }
+        int length = (encoded[1] & 0xFF) << 24 | (encoded[2] & 0xFF) << 16 | (encoded[3] & 0xFF) << 8
+                | (encoded[4] & 0xFF);
+        int offset = 1 + LENGTH_BYTES;
+        byte[] payload = new byte[length];
+        if (stored == Compression.LZ4) {
+            LZ4FastDecompressor decompressor = LZ4.fastDecompressor();
+            try {
+                decompressor.decompress(encoded, offset, payload, 0, length);
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupt LZ4 cached value", e);
+            }
+            return payload;
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(encoded, offset, encoded.length - offset);
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(payload, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new IOException("Truncated deflated cached value");
+            }
+            return payload;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt deflated cached value", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.developmentprep.journalApp.cache;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Approximate access counts for an unbounded set of keys in fixed memory. An estimate is never
+ * below the true count since the last aging, and is above it only when keys share counters.
+ * Every sampleSize increments all counters are halved, so the counts follow what is popular now
+ * rather than what was popular since startup.
+ */
+public class CountMinSketch {
+
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final int width;
+    private final int mask;
+    private final AtomicIntegerArray counters;
+    private final long sampleSize;
+    private final AtomicLong increments = new AtomicLong();
+
+    /**
+     * @param width counters per row, rounded up to a power of two
+     */
+    public CountMinSketch(int width) {
+        this.width = Integer.highestOneBit(Math.max(width - 1, 1)) << 1;
+        this.mask = this.width - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * this.width);
+        this.sampleSize = 10L * this.width;
+    }
+
+    /**
+     * Counts one access to the key and returns its new estimate.
+     */
+    public int increment(String key) {
+        int hash = key.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, hash)));
+        }
+        if (increments.incrementAndGet() >= sampleSize) {
+            age();
+        }
+        return estimate;
+    }
+
+    public int estimate(String key) {
+        int hash = key.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, hash)));
+        }
+        return estimate;
+    }
+
+    private int index(int row, int hash) {
+        int h = hash * SEEDS[row];
+        h ^= h >>> 16;
+        return row * width + (h & mask);
+    }
+
+    private synchronized void age() {
+        // another thread may have aged the counters while this one waited
+        if (increments.get() < sampleSize) {
+            return;
+        }
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+        increments.set(increments.get() / 2);
+    }
+}
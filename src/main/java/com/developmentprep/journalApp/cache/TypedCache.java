@@ -0,0 +1,186 @@
+package com.developmentprep.journalApp.cache;
+
+import com.developmentprep.journalApp.dto.RedisCacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Values of one type cached in Redis under one key prefix, encoded by a shared CacheCodec.
+ * Redis and decoding errors are logged and treated as misses, so a cache outage slows requests
+ * down instead of failing them. Obtained from RedisService.cache.
+ */
+@Slf4j
+public class TypedCache<T> {
+
+    private final String prefix;
+    private final CacheCodec<T> codec;
+    private final RedisTemplate<String, byte[]> redisTemplate;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong getNanos = new AtomicLong();
+    private final AtomicLong bytesRead = new AtomicLong();
+    private final AtomicLong sets = new AtomicLong();
+    private final AtomicLong setNanos = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    public TypedCache(String prefix, CacheCodec<T> codec, RedisTemplate<String, byte[]> redisTemplate) {
+        this.prefix = prefix;
+        this.codec = codec;
+        this.redisTemplate = redisTemplate;
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public Class<T> getType() {
+        return codec.getType();
+    }
+
+    /**
+     * The value cached under prefix + id, or null.
+     */
+    public T get(String id) {
+        String key = prefix + id;
+        long start = System.nanoTime();
+        try {
+            byte[] encoded = redisTemplate.opsForValue().get(key);
+            if (encoded == null) {
+                misses.incrementAndGet();
+                log.debug("Cache miss for key: {}", key);
+                return null;
+            }
+            bytesRead.addAndGet(encoded.length);
+            T value = codec.decode(encoded);
+            hits.incrementAndGet();
+            return value;
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            log.error("Failed to read cached value for key: {}", key, e);
+            delete(id);
+            return null;
+        } finally {
+            getNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    public void set(String id, T value, long ttlSeconds) {
+        String key = prefix + id;
+        long start = System.nanoTime();
+        try {
+            byte[] encoded = codec.encode(value);
+            redisTemplate.opsForValue().set(key, encoded, ttlSeconds, TimeUnit.SECONDS);
+            sets.incrementAndGet();
+            bytesWritten.addAndGet(encoded.length);
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            log.error("Failed to cache value for key: {}", key, e);
+        } finally {
+            setNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * The values cached for the given ids, read with a single MGET. Ids without a (readable)
+     * value are left out of the result.
+     */
+    public Map<String, T> getAll(List<String> ids) {
+        Map<String, T> found = new HashMap<>();
+        if (ids.isEmpty()) {
+            return found;
+        }
+        long start = System.nanoTime();
+        try {
+            List<byte[]> values = redisTemplate.opsForValue().multiGet(ids.stream().map(id -> prefix + id).toList());
+            for (int i = 0; i < ids.size(); i++) {
+                byte[] encoded = values == null ? null : values.get(i);
+                if (encoded == null) {
+                    misses.incrementAndGet();
+                    continue;
+                }
+                bytesRead.addAndGet(encoded.length);
+                try {
+                    found.put(ids.get(i), codec.decode(encoded));
+                    hits.incrementAndGet();
+                } catch (Exception e) {
+                    errors.incrementAndGet();
+                    log.error("Failed to read cached value for key: {}", prefix + ids.get(i), e);
+                    delete(ids.get(i));
+                }
+            }
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            log.error("Failed to read {} cached values under: {}", ids.size(), prefix, e);
+        } finally {
+            getNanos.addAndGet(System.nanoTime() - start);
+        }
+        return found;
+    }
+
+    /**
+     * Caches all the values in one pipelined round trip.
+     */
+    public void setAll(Map<String, T> values, long ttlSeconds) {
+        if (values.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            Map<byte[], byte[]> encoded = new LinkedHashMap<>();
+            long size = 0;
+            for (Map.Entry<String, T> value : values.entrySet()) {
+                byte[] bytes = codec.encode(value.getValue());
+                encoded.put(StringRedisSerializer.UTF_8.serialize(prefix + value.getKey()), bytes);
+                size += bytes.length;
+            }
+            Expiration expiration = Expiration.seconds(ttlSeconds);
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                encoded.forEach((key, bytes) -> connection.stringCommands().set(key, bytes, expiration,
+                        RedisStringCommands.SetOption.upsert()));
+                return null;
+            });
+            sets.addAndGet(values.size());
+            bytesWritten.addAndGet(size);
+        } catch (Exception e) {
+            errors.incrementAndGet();
+            log.error("Failed to cache {} values under: {}", values.size(), prefix, e);
+        } finally {
+            setNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    public void delete(String id) {
+        try {
+            redisTemplate.delete(prefix + id);
+        } catch (Exception e) {
+            log.error("Failed to delete key: {}", prefix + id, e);
+        }
+    }
+
+    public RedisCacheStats stats() {
+        long hitCount = hits.get();
+        long reads = hitCount + misses.get();
+        long writes = sets.get();
+        return new RedisCacheStats(prefix, codec.getType().getSimpleName(), codec.getFormat().name(),
+                codec.getCompression().name(), hitCount, misses.get(), errors.get(), writes,
+                average(getNanos.get() / 1000, reads), average(setNanos.get() / 1000, writes),
+                average(bytesRead.get(), hitCount), average(bytesWritten.get(), writes));
+    }
+
+    private static double average(long total, long count) {
+        return count == 0 ? 0 : (double) total / count;
+    }
+}
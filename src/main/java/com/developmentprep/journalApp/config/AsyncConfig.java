@@ -0,0 +1,126 @@
+package com.developmentprep.journalApp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Bounded executors for background work that must not run on request threads.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Bean(name = "applicationTaskExecutor")
+    public ThreadPoolTaskExecutor applicationTaskExecutor(@Value("${journal.mvc-async.threads:16}") int threads,
+            @Value("${journal.mvc-async.queue-capacity:100}") int queueCapacity) {
+        // the executors below switch off Boot's default one, so async MVC work (the streamed export)
+        // needs a bounded pool of its own instead of a new thread per request
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mvc-async-");
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor purgeExecutor(@Value("${journal.purge.threads:2}") int threads,
+            @Value("${journal.purge.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("account-purge-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor weeklySentimentExecutor(@Value("${journal.weekly-sentiment.threads:4}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        // the job never has more than threads chunks in flight, so the queue stays short
+        executor.setQueueCapacity(threads);
+        executor.setThreadNamePrefix("weekly-sentiment-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor emailExecutor(@Value("${journal.email.threads:8}") int threads,
+            @Value("${journal.email.queue-capacity:200}") int queueCapacity) {
+        // parallel SendGrid calls; a full queue refuses new sends so callers back off instead of piling up
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("email-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor classificationExecutor(@Value("${journal.classification.threads:2}") int threads,
+            @Value("${journal.classification.queue-capacity:1000}") int queueCapacity) {
+        // entries that do not fit in the queue stay unclassified until the next backfill
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("classification-");
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor weatherExecutor(@Value("${journal.weather.threads:16}") int threads,
+            @Value("${journal.weather.queue-capacity:200}") int queueCapacity) {
+        // weather lookups for greetings; when full, greetings go out without weather
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("weather-");
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor weatherRefreshExecutor(@Value("${journal.weather.refresh.threads:2}") int threads,
+            @Value("${journal.weather.refresh.queue-capacity:100}") int queueCapacity) {
+        // refreshes that do not fit are dropped; the next request or refresher run queues them again
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("weather-refresh-");
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor maintenanceExecutor() {
+        // admin-triggered rebuilds; one at a time is plenty and keeps the load on Mongo predictable
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.setThreadNamePrefix("maintenance-");
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${journal.scheduler.threads:8}") int threads) {
+        // runs every @Scheduled job; some block for minutes (weekly sentiment, owner backfill), so each
+        // job needs a thread of its own or the outbox dispatcher and weather refresher wait behind them
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(threads);
+        scheduler.setThreadNamePrefix("scheduler-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(30);
+        return scheduler;
+    }
+}
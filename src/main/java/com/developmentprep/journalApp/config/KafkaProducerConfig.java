@@ -0,0 +1,34 @@
+package com.developmentprep.journalApp.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Map;
+
+/**
+ * Producer settings for the weekly sentiment records: idempotent, so broker-side retries never
+ * duplicate a record, and tuned to collect records into batches instead of sending one request
+ * per record.
+ */
+@Configuration
+public class KafkaProducerConfig {
+
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer batchingProducerCustomizer(
+            @Value("${journal.kafka.producer.linger-ms:20}") int lingerMs,
+            @Value("${journal.kafka.producer.batch-size:65536}") int batchSize,
+            @Value("${journal.kafka.producer.compression-type:lz4}") String compressionType,
+            @Value("${journal.kafka.producer.delivery-timeout-ms:120000}") int deliveryTimeoutMs) {
+        return producerFactory -> producerFactory.updateConfigs(Map.of(
+                ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, 5,
+                ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+                ProducerConfig.BATCH_SIZE_CONFIG, batchSize,
+                ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType,
+                ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, deliveryTimeoutMs));
+    }
+}
@@ -0,0 +1,33 @@
+package com.developmentprep.journalApp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Name of this application instance, used as the holder of job leases and chunk claims.
+ * Defaults to host name and process id; set journal.node-id to override.
+ */
+@Component
+public class NodeIdentity {
+
+    private final String id;
+
+    public NodeIdentity(@Value("${journal.node-id:}") String configuredId) {
+        this.id = configuredId.isEmpty() ? hostName() + "-" + ProcessHandle.current().pid() : configuredId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown-host";
+        }
+    }
+}
@@ -1,9 +1,17 @@
 package com.developmentprep.journalApp.config;
 
+import com.sendgrid.Client;
+import com.sendgrid.SendGrid;
 import lombok.Data;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 @ConfigurationProperties(prefix = "sendgrid")
 @Data
@@ -11,4 +19,32 @@ public class SendGridConfig {
     private String apiKey;
     private String fromEmail;
     private String fromName;
+
+    // all mails go through one pooled HTTP client; connections to SendGrid are kept alive and reused
+    private int maxConnections = 20;
+    private int connectTimeoutMs = 2000;
+    private int socketTimeoutMs = 10000;
+    private int connectionRequestTimeoutMs = 2000;
+
+    @Bean(destroyMethod = "close")
+    public Client sendGridHttpClient() {
+        PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager(30, TimeUnit.SECONDS);
+        connections.setMaxTotal(maxConnections);
+        connections.setDefaultMaxPerRoute(maxConnections);
+        RequestConfig timeouts = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(socketTimeoutMs)
+                .setConnectionRequestTimeout(connectionRequestTimeoutMs)
+                .build();
+        return new Client(HttpClients.custom()
+                .setConnectionManager(connections)
+                .setDefaultRequestConfig(timeouts)
+                .evictIdleConnections(60, TimeUnit.SECONDS)
+                .build());
+    }
+
+    @Bean
+    public SendGrid sendGrid(Client sendGridHttpClient) {
+        return new SendGrid(apiKey, sendGridHttpClient);
+    }
 }
@@ -1,15 +1,30 @@
 package com.developmentprep.journalApp.controller;
 
 import com.developmentprep.journalApp.cache.AppCache;
+import com.developmentprep.journalApp.dto.OutboxStats;
+import com.developmentprep.journalApp.dto.RedisCacheStats;
 import com.developmentprep.journalApp.dto.UserDTO;
+import com.developmentprep.journalApp.dto.WeatherCacheStats;
+import com.developmentprep.journalApp.entity.AccountPurge;
+import com.developmentprep.journalApp.entity.JobRun;
 import com.developmentprep.journalApp.entity.User;
+import com.developmentprep.journalApp.service.AccountPurgeService;
+import com.developmentprep.journalApp.service.OutboxService;
+import com.developmentprep.journalApp.service.RedisService;
+import com.developmentprep.journalApp.service.SentimentAnalyticsService;
+import com.developmentprep.journalApp.service.SentimentClassificationService;
+import com.developmentprep.journalApp.service.SentimentRollupService;
 import com.developmentprep.journalApp.service.UserService;
+import com.developmentprep.journalApp.service.WeatherService;
+import com.developmentprep.journalApp.service.WeeklySentimentService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -22,6 +37,30 @@ public class AdminController {
     @Autowired
     private AppCache appCache;
 
+    @Autowired
+    private AccountPurgeService accountPurgeService;
+
+    @Autowired
+    private WeeklySentimentService weeklySentimentService;
+
+    @Autowired
+    private SentimentRollupService sentimentRollupService;
+
+    @Autowired
+    private SentimentAnalyticsService sentimentAnalyticsService;
+
+    @Autowired
+    private SentimentClassificationService sentimentClassificationService;
+
+    @Autowired
+    private OutboxService outboxService;
+
+    @Autowired
+    private WeatherService weatherService;
+
+    @Autowired
+    private RedisService redisService;
+
     @GetMapping("/all-users")
     public ResponseEntity<?> getAllUsers() {
         List<UserDTO> all = userService.getAllUser();
@@ -40,4 +79,52 @@ public class AdminController {
     public void clearAppCache() {
         appCache.init();
     }
+
+    @GetMapping("/account-purges")
+    public ResponseEntity<List<AccountPurge>> getAccountPurges() {
+        return new ResponseEntity<>(accountPurgeService.recentPurges(), HttpStatus.OK);
+    }
+
+    @GetMapping("/job-runs")
+    public ResponseEntity<List<JobRun>> getJobRuns() {
+        return new ResponseEntity<>(weeklySentimentService.recentRuns(), HttpStatus.OK);
+    }
+
+    @PostMapping("/sentiment-rollups/rebuild")
+    public ResponseEntity<JobRun> rebuildSentimentRollups() {
+        return new ResponseEntity<>(sentimentRollupService.rebuildAllAsync(), HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/sentiment-classification/backfill")
+    public ResponseEntity<JobRun> backfillSentiments() {
+        return new ResponseEntity<>(sentimentClassificationService.backfillAsync(), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping("/outbox")
+    public ResponseEntity<OutboxStats> getOutboxStats() {
+        return new ResponseEntity<>(outboxService.stats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/weather-cache")
+    public ResponseEntity<WeatherCacheStats> getWeatherCacheStats() {
+        return new ResponseEntity<>(weatherService.stats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/redis-cache")
+    public ResponseEntity<List<RedisCacheStats>> getRedisCacheStats() {
+        return new ResponseEntity<>(redisService.stats(), HttpStatus.OK);
+    }
+
+    @GetMapping("/analytics")
+    public ResponseEntity<?> getAnalytics(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(SentimentAnalyticsService.DEFAULT_DAYS - 1);
+        try {
+            return new ResponseEntity<>(sentimentAnalyticsService.analytics(start, end), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
 }
@@ -1,39 +1,162 @@
 package com.developmentprep.journalApp.controller;
 
+import com.developmentprep.journalApp.dto.JournalBatchRequest;
+import com.developmentprep.journalApp.dto.JournalChanges;
+import com.developmentprep.journalApp.dto.JournalEntryPage;
+import com.developmentprep.journalApp.dto.JournalEntryPatch;
+import com.developmentprep.journalApp.dto.JournalMutationResult;
+import com.developmentprep.journalApp.dto.MoodSummary;
+import com.developmentprep.journalApp.dto.RestoreResult;
 import com.developmentprep.journalApp.entity.JournalEntry;
-import com.developmentprep.journalApp.entity.User;
+import com.developmentprep.journalApp.enums.ExportFormat;
+import com.developmentprep.journalApp.enums.Sentiment;
+import com.developmentprep.journalApp.model.JournalChangeToken;
+import com.developmentprep.journalApp.model.JournalCursor;
+import com.developmentprep.journalApp.model.JournalEntryFilter;
+import com.developmentprep.journalApp.model.JournalFieldSet;
+import com.developmentprep.journalApp.service.JournalBatchService;
 import com.developmentprep.journalApp.service.JournalEntryService;
-import com.developmentprep.journalApp.service.UserService;
+import com.developmentprep.journalApp.service.JournalExportService;
+import com.developmentprep.journalApp.service.JournalSyncService;
+import com.developmentprep.journalApp.service.SentimentRollupService;
+import lombok.extern.slf4j.Slf4j;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @RestController
+@Slf4j
 @RequestMapping("/") // Changed from "/journal" since context-path is already "/journal"
 public class JournalEntryController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     @Autowired
     private JournalEntryService journalEntryService;
 
     @Autowired
-    private UserService userService;
+    private JournalBatchService journalBatchService;
+
+    @Autowired
+    private JournalExportService journalExportService;
+
+    @Autowired
+    private JournalSyncService journalSyncService;
+
+    @Autowired
+    private SentimentRollupService sentimentRollupService;
 
     @GetMapping
-    public ResponseEntity<?> getAllJournalEntriesOfUser() {
+    public ResponseEntity<?> getAllJournalEntriesOfUser(@RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + JournalEntryService.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String view) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        JournalCursor cursor;
+        JournalFieldSet fieldSet;
+        try {
+            cursor = after != null && !after.isEmpty() ? JournalCursor.decode(after) : null;
+            fieldSet = JournalFieldSet.parse(fields, view);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        JournalEntryPage page = journalEntryService.findPageForUser(username, cursor, size, fieldSet);
+        return pageResponse(page, fieldSet);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchJournalEntries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Sentiment sentiment,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "" + JournalEntryService.DEFAULT_PAGE_SIZE) int size,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String view) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        JournalCursor cursor;
+        JournalFieldSet fieldSet;
+        try {
+            cursor = after != null && !after.isEmpty() ? JournalCursor.decode(after) : null;
+            fieldSet = JournalFieldSet.parse(fields, view);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        JournalEntryFilter filter = new JournalEntryFilter(from, to, sentiment);
+        JournalEntryPage page = journalEntryService.searchPageForUser(username, filter, cursor, size, fieldSet);
+        return pageResponse(page, fieldSet);
+    }
+
+    /**
+     * Change feed for incremental sync. Without a token only a starting token is returned.
+     * 410 means the token is too old and the client has to download its journal again.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(@RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "" + JournalSyncService.DEFAULT_LIMIT) int limit) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
-        User user = userService.findByUserName(username);
-        List<JournalEntry> all = user.getJournalEntries();
+        if (since == null || since.isEmpty()) {
+            return new ResponseEntity<>(new JournalChanges(List.of(), List.of(), journalSyncService.startToken(), false),
+                    HttpStatus.OK);
+        }
+        JournalChangeToken token;
+        try {
+            token = JournalChangeToken.decode(since);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        Optional<JournalChanges> changes = journalSyncService.changesSince(username, token, limit);
+        if (changes.isEmpty()) {
+            return new ResponseEntity<>("Change token has expired, download the journal again", HttpStatus.GONE);
+        }
+        return new ResponseEntity<>(changes.get(), HttpStatus.OK);
+    }
+
+    /**
+     * Sentiment counts over the last days days (7 for a week, 31 for a month), read from the
+     * daily rollups rather than the entries.
+     */
+    @GetMapping("/mood")
+    public ResponseEntity<MoodSummary> getMood(@RequestParam(defaultValue = "7") int days) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (days < 1 || days > SentimentRollupService.MAX_DAYS) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(sentimentRollupService.summary(authentication.getName(), days), HttpStatus.OK);
+    }
+
+    private ResponseEntity<?> pageResponse(JournalEntryPage page, JournalFieldSet fieldSet) {
+        List<JournalEntry> all = page.getEntries();
         if (all != null && !all.isEmpty()) {
-            return new ResponseEntity<>(all, HttpStatus.OK);
+            // body stays a plain array; the position of the next page travels in a header
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            if (fieldSet != null) {
+                return response.body(all.stream().map(fieldSet::render).toList());
+            }
+            return response.body(all);
         } else
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
@@ -50,17 +173,29 @@ public class JournalEntryController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<JournalMutationResult>> applyBatch(@Valid @RequestBody JournalBatchRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        return new ResponseEntity<>(journalBatchService.apply(username, request.getMutations()), HttpStatus.OK);
+    }
+
     @GetMapping("/id/{myId}")
-    public ResponseEntity<JournalEntry> getJournalEntryById(@PathVariable ObjectId myId) {
+    public ResponseEntity<?> getJournalEntryById(@PathVariable ObjectId myId,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) String view) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
-        User user = userService.findByUserName(username);
-        List<JournalEntry> collect = user.getJournalEntries().stream().filter(x -> x.getId().equals(myId)).toList();
-        if (!collect.isEmpty()) {
-            Optional<JournalEntry> journalEntry = journalEntryService.findById(myId);
-            if (journalEntry.isPresent()) {
-                return new ResponseEntity<>(journalEntry.get(), HttpStatus.OK);
-            }
+        JournalFieldSet fieldSet;
+        try {
+            fieldSet = JournalFieldSet.parse(fields, view);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        Optional<JournalEntry> journalEntry = journalEntryService.findOwnedById(myId, username, fieldSet);
+        if (journalEntry.isPresent()) {
+            Object body = fieldSet != null ? fieldSet.render(journalEntry.get()) : journalEntry.get();
+            return new ResponseEntity<>(body, HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
@@ -81,21 +216,65 @@ public class JournalEntryController {
             @RequestBody JournalEntry newEntry) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
-        User user = userService.findByUserName(username);
-        List<JournalEntry> collect = user.getJournalEntries().stream().filter(x -> x.getId().equals(id)).toList();
-        if (!collect.isEmpty()) {
-            Optional<JournalEntry> journalEntry = journalEntryService.findById(id);
-            if (journalEntry.isPresent()) {
-                JournalEntry old = journalEntry.get();
-                old.setTitle(newEntry.getTitle() != null && !newEntry.getTitle().isEmpty() ? newEntry.getTitle()
-                        : old.getTitle());
-                old.setContent(newEntry.getContent() != null && !newEntry.getContent().isEmpty() ? newEntry.getContent()
-                        : old.getContent());
-                old.setSentiment(newEntry.getSentiment() != null ? newEntry.getSentiment() : old.getSentiment());
-                journalEntryService.saveEntry(old);
-                return new ResponseEntity<>(old, HttpStatus.OK);
-            }
+        Optional<JournalEntry> updated = journalEntryService.updateOwnedById(id, username, newEntry);
+        if (updated.isPresent()) {
+            return new ResponseEntity<>(updated.get(), HttpStatus.OK);
         }
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
+
+    @PatchMapping("/id/{id}")
+    public ResponseEntity<?> patchJournalEntryById(@PathVariable ObjectId id,
+            @Valid @RequestBody JournalEntryPatch patch) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        try {
+            Optional<JournalEntry> patched = journalEntryService.patchOwnedById(id, username, patch);
+            if (patched.isPresent()) {
+                Long version = patched.get().getVersion();
+                return ResponseEntity.ok()
+                        .eTag(String.valueOf(version))
+                        .body(Map.of("id", id.toHexString(), "version", version));
+            }
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(e.getMessage(), HttpStatus.CONFLICT);
+        }
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportJournal(@RequestParam(defaultValue = "ndjson") String format) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromParam(format);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + exportFormat.getFileName() + "\"")
+                .body(journalExportService.export(username, exportFormat));
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<?> restoreJournal(@RequestParam(defaultValue = "ndjson") String format, InputStream body) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication.getName();
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromParam(format);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>("Unknown export format: " + format, HttpStatus.BAD_REQUEST);
+        }
+        try {
+            RestoreResult result = journalExportService.restore(username, exportFormat, body);
+            return new ResponseEntity<>(result, HttpStatus.OK);
+        } catch (IOException e) {
+            // the upload could not be read or decoded; anything else is ours and goes out as a 5xx
+            log.warn("Rejected journal export of {}", username, e);
+            return new ResponseEntity<>("Invalid journal export: " + e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
 }
@@ -1,12 +1,16 @@
 package com.developmentprep.journalApp.controller;
 
-import com.developmentprep.journalApp.api.response.WeatherResponse;
 import com.developmentprep.journalApp.dto.EmailRequest;
+import com.developmentprep.journalApp.dto.EmailStatus;
+import com.developmentprep.journalApp.entity.AccountPurge;
+import com.developmentprep.journalApp.entity.OutboxEmail;
 import com.developmentprep.journalApp.entity.User;
-import com.developmentprep.journalApp.service.EmailService;
+import com.developmentprep.journalApp.service.AccountPurgeService;
+import com.developmentprep.journalApp.service.OutboxService;
 import com.developmentprep.journalApp.service.UserService;
 import com.developmentprep.journalApp.service.WeatherService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -14,6 +18,10 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/user")
 public class UserController {
@@ -24,8 +32,20 @@ public class UserController {
     @Autowired
     private WeatherService weatherService;
 
+    @Value("${journal.weather.greeting-budget-ms:300}")
+    private long weatherBudgetMs;
+
+    @Value("${journal.weather.batch-budget-ms:500}")
+    private long weatherBatchBudgetMs;
+
+    @Value("${journal.weather.batch-max-cities:20}")
+    private int weatherBatchMaxCities;
+
     @Autowired
-    private EmailService emailService;
+    private OutboxService outboxService;
+
+    @Autowired
+    private AccountPurgeService accountPurgeService;
 
     @Autowired
     private org.springframework.security.crypto.password.PasswordEncoder passwordEncoder;
@@ -38,17 +58,28 @@ public class UserController {
             String username = authentication.getName();
             User user = userService.findByUserName(username);
 
-            // Send email with user's email as Reply-To
-            emailService.sendMail(user.getEmail(), emailRequest.getTo(),
+            // Queue the email with user's email as Reply-To; the outbox dispatcher sends it
+            OutboxEmail email = outboxService.enqueueEmail(username, user.getEmail(), emailRequest.getTo(),
                     emailRequest.getSubject(), emailRequest.getBody());
 
-            return new ResponseEntity<>("Email sent successfully to " + emailRequest.getTo(), HttpStatus.OK);
+            return new ResponseEntity<>(new EmailStatus(email.getId(), email.getStatus(), email.getAttempts(),
+                    email.getCreatedAt(), null, null), HttpStatus.ACCEPTED);
         } catch (Exception e) {
-            return new ResponseEntity<>("Failed to send email: " + e.getMessage(),
+            return new ResponseEntity<>("Failed to queue email: " + e.getMessage(),
                     HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    @GetMapping("/emails/{id}")
+    public ResponseEntity<?> getEmailStatus(@PathVariable String id) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Optional<EmailStatus> status = outboxService.statusFor(id, authentication.getName());
+        if (status.isPresent()) {
+            return new ResponseEntity<>(status.get(), HttpStatus.OK);
+        }
+        return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
     @PutMapping
     public ResponseEntity<?> updateUser(@Valid @RequestBody User user) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -72,7 +103,7 @@ public class UserController {
     }
 
     @DeleteMapping
-    public ResponseEntity<?> deleteByUserName() {
+    public ResponseEntity<?> deleteByUserName(@RequestParam(defaultValue = "false") boolean async) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
 
@@ -82,21 +113,44 @@ public class UserController {
             return new ResponseEntity<>("Admin users cannot delete their accounts", HttpStatus.FORBIDDEN);
         }
 
+        if (async) {
+            AccountPurge purge = accountPurgeService.deleteUserAndEntriesAsync(username);
+            return new ResponseEntity<>(purge, HttpStatus.ACCEPTED);
+        }
         userService.deleteUserAndEntries(username);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * Weather for up to weatherBatchMaxCities cities in one call, keyed by city in the order
+     * asked; cities whose weather is not available within the budget map to null.
+     */
+    @GetMapping("/weather")
+    public CompletableFuture<ResponseEntity<?>> getWeather(@RequestParam List<String> cities) {
+        if (cities.isEmpty() || cities.size() > weatherBatchMaxCities) {
+            return CompletableFuture.completedFuture(new ResponseEntity<>(
+                    "Ask for 1 to " + weatherBatchMaxCities + " cities", HttpStatus.BAD_REQUEST));
+        }
+        return weatherService.getWeatherForAll(cities, weatherBatchBudgetMs)
+                .thenApply(weather -> new ResponseEntity<>(weather, HttpStatus.OK));
+    }
+
+    /**
+     * Runs asynchronously, so no request thread waits on weatherstack. Weather that does not
+     * arrive within the budget is left out of the greeting.
+     */
     @GetMapping("/{city}")
-    public ResponseEntity<?> getWelcomeMessage(@PathVariable String city) {
+    public CompletableFuture<ResponseEntity<String>> getWelcomeMessage(@PathVariable String city) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         String username = authentication.getName();
-        WeatherResponse weatherResponse = weatherService.getWeather(city);
-        String weatherInfo = "";
-        if (weatherResponse != null) {
-            weatherInfo = " Today's weather in " + city + " feels like " + weatherResponse.getCurrent().getFeelslike()
-                    + "°C.";
-        }
-        return new ResponseEntity<>("Welcome back, " + username + "! \n" + weatherInfo, HttpStatus.OK);
+        return weatherService.getWeatherWithin(city, weatherBudgetMs).thenApply(weatherResponse -> {
+            String weatherInfo = "";
+            if (weatherResponse != null && weatherResponse.getCurrent() != null) {
+                weatherInfo = " Today's weather in " + city + " feels like "
+                        + weatherResponse.getCurrent().getFeelslike() + "°C.";
+            }
+            return new ResponseEntity<>("Welcome back, " + username + "! \n" + weatherInfo, HttpStatus.OK);
+        });
     }
 
 }
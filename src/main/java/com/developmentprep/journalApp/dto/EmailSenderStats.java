@@ -0,0 +1,23 @@
+package com.developmentprep.journalApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Load on this node's email sender: its worker pool and queue, and counts since the node
+ * started. rejected counts sends refused because the queue was full.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailSenderStats {
+    private int threads;
+    private int active;
+    private int queued;
+    private int queueCapacity;
+    private long submitted;
+    private long rejected;
+    private long sent;
+    private long failed;
+}
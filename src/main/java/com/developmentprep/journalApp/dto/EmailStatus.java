@@ -0,0 +1,23 @@
+package com.developmentprep.journalApp.dto;
+
+import com.developmentprep.journalApp.enums.OutboxStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Delivery state of an email queued through POST /user/send-email.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmailStatus {
+    private String id;
+    private OutboxStatus status;
+    private int attempts;
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+    private String lastError;
+}
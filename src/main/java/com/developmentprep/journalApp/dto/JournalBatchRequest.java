@@ -0,0 +1,23 @@
+package com.developmentprep.journalApp.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Ordered list of journal mutations applied in a single request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalBatchRequest {
+
+    @NotEmpty(message = "At least one mutation is required")
+    @Size(max = 500, message = "A batch cannot contain more than 500 mutations")
+    private List<@Valid JournalMutation> mutations;
+}
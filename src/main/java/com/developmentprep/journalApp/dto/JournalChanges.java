@@ -0,0 +1,23 @@
+package com.developmentprep.journalApp.dto;
+
+import com.developmentprep.journalApp.entity.JournalEntry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Entries created or updated and ids deleted since a change token, plus the token to send next.
+ * hasMore is true when the client should ask again straight away instead of waiting for its
+ * next poll. The same change can be reported twice; clients apply them by id and version.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalChanges {
+    private List<JournalEntry> changed;
+    private List<String> deleted;
+    private String token;
+    private boolean hasMore;
+}
@@ -0,0 +1,20 @@
+package com.developmentprep.journalApp.dto;
+
+import com.developmentprep.journalApp.entity.JournalEntry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated journal listing.
+ * nextCursor is null when there are no more entries.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalEntryPage {
+    private List<JournalEntry> entries;
+    private String nextCursor;
+}
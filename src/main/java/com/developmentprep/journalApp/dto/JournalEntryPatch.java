@@ -0,0 +1,29 @@
+package com.developmentprep.journalApp.dto;
+
+import com.developmentprep.journalApp.enums.Sentiment;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Partial update of a journal entry. Only non-null fields are changed; version must be
+ * the version the client last read.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalEntryPatch {
+
+    @Size(min = 3, max = 100, message = "Title must be between 3 and 100 characters")
+    private String title;
+
+    @Size(max = 5000, message = "Content cannot exceed 5000 characters")
+    private String content;
+
+    private Sentiment sentiment;
+
+    @NotNull(message = "Version is required")
+    private Long version;
+}
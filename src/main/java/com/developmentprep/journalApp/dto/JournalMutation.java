@@ -0,0 +1,27 @@
+package com.developmentprep.journalApp.dto;
+
+import com.developmentprep.journalApp.enums.MutationType;
+import com.developmentprep.journalApp.enums.Sentiment;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+
+/**
+ * One change in a batch sync: CREATE uses title/content/sentiment, UPDATE uses id plus
+ * the fields to change, DELETE uses only id.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalMutation {
+
+    @NotNull(message = "Mutation type is required")
+    private MutationType op;
+
+    private ObjectId id;
+    private String title;
+    private String content;
+    private Sentiment sentiment;
+}
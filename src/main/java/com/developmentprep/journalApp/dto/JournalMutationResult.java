@@ -0,0 +1,19 @@
+package com.developmentprep.journalApp.dto;
+
+import com.developmentprep.journalApp.enums.MutationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of the mutation at the same index in the batch request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalMutationResult {
+    private int index;
+    private MutationStatus status;
+    private String id;
+    private String error;
+}
@@ -0,0 +1,26 @@
+package com.developmentprep.journalApp.dto;
+
+import com.developmentprep.journalApp.entity.DailySentimentRollup;
+import com.developmentprep.journalApp.enums.Sentiment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A user's sentiment counts over the days from..to (inclusive), in total and per day.
+ * dominant is the most frequent sentiment, or null when no entry in the period has one.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoodSummary {
+    private LocalDate from;
+    private LocalDate to;
+    private Map<Sentiment, Long> counts;
+    private Sentiment dominant;
+    private List<DailySentimentRollup> days;
+}
@@ -0,0 +1,27 @@
+package com.developmentprep.journalApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * State of the email outbox. lagMs is how long the oldest due email has been waiting (0 when
+ * none is due). The node fields count what the answering node dispatched since it started;
+ * nodeDeferred counts emails put back because the sender was saturated.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxStats {
+    private long pending;
+    private long processing;
+    private long dead;
+    private long lagMs;
+    private String node;
+    private long nodeSent;
+    private long nodeRetried;
+    private long nodeDeadLettered;
+    private long nodeDeferred;
+    private double nodeLastDrainPerSecond;
+    private EmailSenderStats sender;
+}
@@ -0,0 +1,28 @@
+package com.developmentprep.journalApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Counters of one Redis key prefix on the answering node since it started. Latencies are per
+ * value and include encoding and decoding, so a batched read or write counts its time once
+ * spread over its values; payload sizes are the encoded bytes as stored in Redis.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RedisCacheStats {
+    private String prefix;
+    private String type;
+    private String format;
+    private String compression;
+    private long hits;
+    private long misses;
+    private long errors;
+    private long sets;
+    private double avgGetMicros;
+    private double avgSetMicros;
+    private double avgReadBytes;
+    private double avgWrittenBytes;
+}
@@ -0,0 +1,18 @@
+package com.developmentprep.journalApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a journal restore: entries written, entries rejected by validation,
+ * and entries the database refused (e.g. an id that belongs to another user).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RestoreResult {
+    private long restored;
+    private long invalid;
+    private long failed;
+}
@@ -0,0 +1,36 @@
+package com.developmentprep.journalApp.dto;
+
+import com.developmentprep.journalApp.enums.Sentiment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Journal activity of all users over the days from..to (inclusive): how many entries were
+ * written, by how many users, and with which sentiment, in total and per day.
+ * Days without entries are left out of days.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SentimentAnalytics {
+    private LocalDate from;
+    private LocalDate to;
+    private long entries;
+    private long activeWriters;
+    private Map<Sentiment, Long> distribution;
+    private List<Day> days;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Day {
+        private LocalDate day;
+        private long entries;
+        private long activeWriters;
+    }
+}
@@ -0,0 +1,34 @@
+package com.developmentprep.journalApp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Weather cache counters of the answering node since it started. coalesced counts lookups that
+ * waited for a load another request had already started; redisHits and upstreamCalls split the
+ * local misses between Redis and weatherstack. staleServed counts weather served past the soft TTL,
+ * refreshes the background refreshes that called weatherstack, overBudget the greetings sent
+ * without weather because it did not arrive in time, and hotCities are the cities kept warm,
+ * most requested first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WeatherCacheStats {
+    private int localSize;
+    private int localMaxSize;
+    private long localHits;
+    private long localMisses;
+    private long coalesced;
+    private long evictions;
+    private long redisHits;
+    private long upstreamCalls;
+    private long staleServed;
+    private long refreshes;
+    private long refreshesRejected;
+    private long overBudget;
+    private List<String> hotCities;
+}
@@ -0,0 +1,46 @@
+package com.developmentprep.journalApp.entity;
+
+import com.developmentprep.journalApp.enums.PurgeStatus;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress record of an asynchronous account deletion, visible to admins. Holds everything
+ * needed to find the user's entries, so a purge can be retried after the user document is gone.
+ */
+@Document(collection = "account_purges")
+@Data
+@NoArgsConstructor
+public class AccountPurge {
+
+    @Id
+    @JsonSerialize(using = ToStringSerializer.class)
+    private ObjectId id;
+
+    private String userName;
+
+    @JsonSerialize(using = ToStringSerializer.class)
+    private ObjectId userId;
+
+    // entries still referenced only from the deleted user's legacy journalEntries array
+    @JsonIgnore
+    private List<ObjectId> legacyEntryIds = new ArrayList<>();
+
+    private PurgeStatus status;
+    private long deletedEntries;
+    private int attempts;
+    private LocalDateTime requestedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
@@ -0,0 +1,40 @@
+package com.developmentprep.journalApp.entity;
+
+import com.developmentprep.journalApp.enums.Sentiment;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Number of a user's entries per sentiment for one day (the day of the entry's date). Kept up
+ * to date with $inc by every write to journal_entries and rebuilt from the entries on demand.
+ */
+@Document(collection = "daily_sentiment_rollups")
+@CompoundIndex(name = "owner_day_idx", def = "{'ownerId': 1, 'day': 1}", unique = true)
+@Data
+@NoArgsConstructor
+public class DailySentimentRollup {
+
+    @Id
+    @JsonIgnore
+    private ObjectId id;
+
+    @JsonIgnore
+    private ObjectId ownerId;
+
+    private LocalDate day;
+
+    private Map<Sentiment, Long> counts = new EnumMap<>(Sentiment.class);
+
+    @JsonIgnore
+    private LocalDateTime updatedAt;
+}
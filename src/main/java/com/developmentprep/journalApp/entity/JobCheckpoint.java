@@ -0,0 +1,31 @@
+package com.developmentprep.journalApp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a long-running background job, keyed by job name, so that the job
+ * can resume from the last completed batch after a restart.
+ */
+@Document(collection = "job_checkpoints")
+@Data
+@NoArgsConstructor
+public class JobCheckpoint {
+
+    @Id
+    private String name;
+
+    private ObjectId lastProcessedId;
+    private long processed;
+    private boolean completed;
+    private LocalDateTime updatedAt;
+
+    public JobCheckpoint(String name) {
+        this.name = name;
+    }
+}
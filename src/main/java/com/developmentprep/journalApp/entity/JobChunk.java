@@ -0,0 +1,43 @@
+package com.developmentprep.journalApp.entity;
+
+import com.developmentprep.journalApp.enums.ChunkStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * One id range of a partitioned job, (after, upTo]. Nodes claim chunks with a lease, so every
+ * chunk is worked on by one node at a time and a chunk left behind by a dead node is picked up
+ * again once its lease runs out.
+ */
+@Document(collection = "job_chunks")
+@CompoundIndex(name = "job_after_idx", def = "{'job': 1, 'after': 1}", unique = true)
+@CompoundIndex(name = "job_status_idx", def = "{'job': 1, 'status': 1, 'leaseUntil': 1}")
+@Data
+@NoArgsConstructor
+public class JobChunk {
+
+    @Id
+    private ObjectId id;
+
+    private String job;
+    private ObjectId after;
+    private ObjectId upTo;
+
+    private ChunkStatus status;
+    private int attempts;
+    private String claimedBy;
+    private LocalDateTime leaseUntil;
+    private long processed;
+    private String error;
+
+    @Indexed(name = "created_at_ttl", expireAfter = "60d")
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
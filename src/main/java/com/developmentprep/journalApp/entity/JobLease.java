@@ -0,0 +1,25 @@
+package com.developmentprep.journalApp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Time-limited lock on a named piece of work, shared by all application nodes through Mongo.
+ * Whoever holds an unexpired lease owns the work; an expired one can be taken by anyone.
+ */
+@Document(collection = "job_leases")
+@Data
+@NoArgsConstructor
+public class JobLease {
+
+    @Id
+    private String name;
+
+    private String owner;
+    private LocalDateTime acquiredAt;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,52 @@
+package com.developmentprep.journalApp.entity;
+
+import com.developmentprep.journalApp.enums.JobRunStatus;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome and throughput of one node's part in a chunked background job, visible to admins.
+ * Several runs share a checkpoint when nodes work on the job side by side or resume it.
+ */
+@Document(collection = "job_runs")
+@Data
+@NoArgsConstructor
+public class JobRun {
+
+    @Id
+    @JsonSerialize(using = ToStringSerializer.class)
+    private ObjectId id;
+
+    private String name;
+
+    // JobCheckpoint of the job this run took part in
+    private String checkpoint;
+
+    // application node that did this run; several nodes can work on the same job at once
+    private String node;
+
+    private JobRunStatus status;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long durationMs;
+
+    private int chunks;
+    private int failedChunks;
+    private long processed;
+    // weekly sentiment: records acknowledged by Kafka, or mailed directly without Kafka;
+    // classification backfill: entries that got a sentiment
+    private long sent;
+    private long skipped;
+    // weekly sentiment: records not delivered in this run and handed to the retry path
+    private long failed;
+    private double processedPerSecond;
+
+    private String error;
+}
@@ -1,6 +1,7 @@
 package com.developmentprep.journalApp.entity;
 
 import com.developmentprep.journalApp.enums.Sentiment;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import jakarta.validation.constraints.NotBlank;
@@ -8,11 +9,17 @@ import jakarta.validation.constraints.Size;
 import lombok.*;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 
 @Document(collection = "journal_entries")
+@CompoundIndex(name = "owner_date_idx", def = "{'ownerId': 1, 'date': -1, '_id': -1}")
+@CompoundIndex(name = "owner_sentiment_date_idx", def = "{'ownerId': 1, 'sentiment': 1, 'date': -1, '_id': -1}")
+@CompoundIndex(name = "owner_updated_idx", def = "{'ownerId': 1, 'updatedAt': 1, '_id': 1}")
+@CompoundIndex(name = "date_sentiment_owner_idx", def = "{'date': 1, 'sentiment': 1, 'ownerId': 1}")
 @Data
 @NoArgsConstructor
 public class JournalEntry {
@@ -20,6 +27,10 @@ public class JournalEntry {
     @JsonSerialize(using = ToStringSerializer.class)
     private ObjectId id;
 
+    // id of the owning user; set by the server, never accepted from clients
+    @JsonIgnore
+    private ObjectId ownerId;
+
     @NotBlank(message = "Title cannot be blank")
     @Size(min = 3, max = 100, message = "Title must be between 3 and 100 characters")
     private String title;
@@ -29,4 +40,11 @@ public class JournalEntry {
 
     private LocalDateTime date;
     private Sentiment sentiment;
+
+    // time of the last write, drives the change feed; null on entries untouched since before it existed
+    private LocalDateTime updatedAt;
+
+    // bumped by every write; entries written before versioning read as null and count as 0
+    @Version
+    private Long version;
 }
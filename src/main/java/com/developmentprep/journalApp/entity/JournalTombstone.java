@@ -0,0 +1,36 @@
+package com.developmentprep.journalApp.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Marker left behind when a journal entry is deleted, so that syncing clients learn about the
+ * delete. Keyed by the deleted entry's id and removed by Mongo after {@link #RETENTION}.
+ */
+@Document(collection = "journal_tombstones")
+@CompoundIndex(name = "owner_deleted_idx", def = "{'ownerId': 1, 'deletedAt': 1, '_id': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalTombstone {
+
+    // keep in step with expireAfter below
+    public static final Duration RETENTION = Duration.ofDays(30);
+
+    @Id
+    private ObjectId id;
+
+    private ObjectId ownerId;
+
+    @Indexed(name = "deleted_at_ttl", expireAfter = "30d")
+    private LocalDateTime deletedAt;
+}
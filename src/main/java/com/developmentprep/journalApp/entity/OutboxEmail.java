@@ -0,0 +1,59 @@
+package com.developmentprep.journalApp.entity;
+
+import com.developmentprep.journalApp.enums.OutboxStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * An email waiting in the outbox. Requests and consumers only insert one of these; the
+ * OutboxDispatcher sends it later. A caller that must not send the same mail twice picks the id
+ * itself, so a second insert fails; sent emails are kept for SENT_RETENTION for that reason.
+ */
+@Document(collection = "email_outbox")
+@CompoundIndex(name = "status_next_idx", def = "{'status': 1, 'nextAttemptAt': 1}")
+@Data
+@NoArgsConstructor
+public class OutboxEmail {
+
+    public static final Duration SENT_RETENTION = Duration.ofDays(8);
+    public static final Duration DEAD_RETENTION = Duration.ofDays(30);
+
+    @Id
+    private String id;
+
+    private String to;
+    private String replyTo;
+    private String subject;
+    private String body;
+
+    // username of the user who queued it through /user/send-email; null for system emails
+    private String requestedBy;
+
+    private OutboxStatus status;
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
+
+    // set for the batch a dispatcher claimed; the claim can be taken over once leaseUntil has passed
+    @Indexed(name = "claim_idx", sparse = true)
+    private String claim;
+    private LocalDateTime leaseUntil;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+
+    // set once the email is SENT or DEAD, removed by the TTL index then
+    @Indexed(name = "expire_at_ttl", expireAfter = "0s")
+    private LocalDateTime expireAt;
+
+    public static String weeklySentimentId(String email, String week) {
+        return "weekly-sentiment:" + email.toLowerCase() + ":" + week;
+    }
+}
@@ -40,6 +40,8 @@ public class User {
     @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 
+    // Legacy ownership list. New entries are owned through JournalEntry.ownerId;
+    // OwnerBackfillMigration moves existing references there and empties this list.
     @DBRef
     @Builder.Default
     private List<JournalEntry> journalEntries = new ArrayList<>();
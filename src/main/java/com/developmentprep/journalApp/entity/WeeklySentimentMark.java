@@ -0,0 +1,59 @@
+package com.developmentprep.journalApp.entity;
+
+import com.developmentprep.journalApp.enums.MarkStatus;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * Claims a user's weekly sentiment for a given week. The id is "userId:week", so claiming a
+ * user for a week is a single insert that fails on a rerun. The mark carries the record and stays
+ * PENDING until the broker acknowledged it, so a record whose node stopped before that can be
+ * published again.
+ */
+@Document(collection = "weekly_sentiment_marks")
+@CompoundIndex(name = "status_claimed_idx", def = "{'status': 1, 'claimedAt': 1}")
+@Data
+@NoArgsConstructor
+public class WeeklySentimentMark {
+
+    @Id
+    private String id;
+
+    private ObjectId userId;
+
+    private String week;
+
+    private String email;
+
+    private String sentiment;
+
+    private MarkStatus status;
+
+    @Indexed(name = "claimed_at_ttl", expireAfter = "60d")
+    private LocalDateTime claimedAt;
+
+    private LocalDateTime sentAt;
+
+    public static String idFor(ObjectId userId, String week) {
+        return userId.toHexString() + ":" + week;
+    }
+
+    public static WeeklySentimentMark pending(ObjectId userId, String week, String email, String sentiment) {
+        WeeklySentimentMark mark = new WeeklySentimentMark();
+        mark.setId(idFor(userId, week));
+        mark.setUserId(userId);
+        mark.setWeek(week);
+        mark.setEmail(email);
+        mark.setSentiment(sentiment);
+        mark.setStatus(MarkStatus.PENDING);
+        mark.setClaimedAt(LocalDateTime.now());
+        return mark;
+    }
+}
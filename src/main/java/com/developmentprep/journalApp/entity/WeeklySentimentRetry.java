@@ -0,0 +1,38 @@
+package com.developmentprep.journalApp.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * A weekly sentiment record that could not be published, waiting to be sent again. The id is
+ * the user's WeeklySentimentMark id, so a record is queued at most once per user and week.
+ * Records that used up their attempts stay until the TTL removes them, for inspection.
+ */
+@Document(collection = "weekly_sentiment_retries")
+@CompoundIndex(name = "attempts_next_idx", def = "{'attempts': 1, 'nextAttemptAt': 1}")
+@Data
+@NoArgsConstructor
+public class WeeklySentimentRetry {
+
+    @Id
+    private String id;
+
+    private ObjectId userId;
+    private String email;
+    private String sentiment;
+    private String week;
+
+    private int attempts;
+    private LocalDateTime nextAttemptAt;
+    private String lastError;
+
+    @Indexed(name = "created_at_ttl", expireAfter = "30d")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,8 @@
+package com.developmentprep.journalApp.enums;
+
+public enum ChunkStatus {
+    PENDING,
+    CLAIMED,
+    DONE,
+    FAILED
+}
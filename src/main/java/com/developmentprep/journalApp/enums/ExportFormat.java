@@ -0,0 +1,26 @@
+package com.developmentprep.journalApp.enums;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "journal.ndjson"),
+    BINARY("application/octet-stream", "journal.msj.gz");
+
+    private final String contentType;
+    private final String fileName;
+
+    ExportFormat(String contentType, String fileName) {
+        this.contentType = contentType;
+        this.fileName = fileName;
+    }
+
+    public static ExportFormat fromParam(String value) {
+        return valueOf(value.trim().toUpperCase());
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+}
@@ -0,0 +1,9 @@
+package com.developmentprep.journalApp.enums;
+
+public enum JobRunStatus {
+    RUNNING,
+    COMPLETED,
+    // stopped with chunks left over; the next run resumes from the checkpoint
+    INCOMPLETE,
+    FAILED
+}
@@ -0,0 +1,9 @@
+package com.developmentprep.journalApp.enums;
+
+public enum MarkStatus {
+    // claimed, the record is not acknowledged by the broker yet
+    PENDING,
+    // parked in weekly_sentiment_retries, which sends it from here on
+    RETRYING,
+    SENT
+}
@@ -0,0 +1,10 @@
+package com.developmentprep.journalApp.enums;
+
+public enum MutationStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    NOT_FOUND,
+    INVALID,
+    FAILED
+}
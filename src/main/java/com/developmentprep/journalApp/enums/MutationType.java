@@ -0,0 +1,7 @@
+package com.developmentprep.journalApp.enums;
+
+public enum MutationType {
+    CREATE,
+    UPDATE,
+    DELETE
+}
@@ -0,0 +1,9 @@
+package com.developmentprep.journalApp.enums;
+
+public enum PurgeStatus {
+    // recorded, waiting for a purge worker
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,224 @@
+package com.developmentprep.journalApp.migration;
+
+import com.developmentprep.journalApp.config.NodeIdentity;
+import com.developmentprep.journalApp.entity.JobCheckpoint;
+import com.developmentprep.journalApp.entity.JournalEntry;
+import com.developmentprep.journalApp.entity.User;
+import com.developmentprep.journalApp.enums.Sentiment;
+import com.developmentprep.journalApp.model.SentimentRollupDelta;
+import com.developmentprep.journalApp.repository.JobCheckpointRepository;
+import com.developmentprep.journalApp.repository.JobLeaseRepositoryImpl;
+import com.developmentprep.journalApp.service.SentimentRollupService;
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Backfills JournalEntry.ownerId from the legacy User.journalEntries DBRef arrays.
+ *
+ * Runs in small batches on the scheduler while the application keeps serving traffic:
+ * owner-scoped queries still match not-yet-migrated entries by id, and each migrated
+ * user's array is emptied only after its entries carry an ownerId. Progress is
+ * checkpointed after every batch, so a restart resumes from the last migrated user,
+ * and every step is idempotent. Entries start counting in the sentiment rollups once they
+ * have an owner, so the entries a user's migration stamps are added to that user's counters.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "journal.migration.owner-backfill.enabled", havingValue = "true", matchIfMissing = true)
+public class OwnerBackfillMigration {
+
+    static final String JOB_NAME = "owner-backfill";
+    private static final int MAX_USER_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final JobLeaseRepositoryImpl jobLeaseRepositoryImpl;
+    private final NodeIdentity nodeIdentity;
+    private final SentimentRollupService sentimentRollupService;
+
+    @Value("${journal.migration.owner-backfill.batch-size:200}")
+    private int batchSize;
+
+    @Value("${journal.migration.owner-backfill.batches-per-run:25}")
+    private int batchesPerRun;
+
+    @Value("${journal.migration.owner-backfill.interval-ms:30000}")
+    private long intervalMs;
+
+    private volatile boolean completed;
+
+    @Scheduled(initialDelayString = "${journal.migration.owner-backfill.initial-delay-ms:30000}",
+            fixedDelayString = "${journal.migration.owner-backfill.interval-ms:30000}")
+    public void run() {
+        if (completed) {
+            return;
+        }
+        // one node migrates at a time; the lease outlives a tick so the holder keeps it between runs
+        if (!jobLeaseRepositoryImpl.tryAcquire(JOB_NAME, nodeIdentity.getId(), Duration.ofMillis(intervalMs * 3))) {
+            return;
+        }
+        JobCheckpoint checkpoint = jobCheckpointRepository.findById(JOB_NAME).orElse(new JobCheckpoint(JOB_NAME));
+        if (checkpoint.isCompleted()) {
+            completed = true;
+            return;
+        }
+        try {
+            // bounded amount of work per tick so other scheduled jobs are not starved
+            boolean stuck = false;
+            for (int i = 0; i < batchesPerRun && !checkpoint.isCompleted() && !stuck; i++) {
+                stuck = !migrateBatch(checkpoint);
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                jobCheckpointRepository.save(checkpoint);
+            }
+        } catch (Exception e) {
+            log.error("Owner backfill stopped after user {}, will resume on next run",
+                    checkpoint.getLastProcessedId(), e);
+            return;
+        }
+        if (checkpoint.isCompleted()) {
+            completed = true;
+            log.info("Owner backfill completed, {} users migrated", checkpoint.getProcessed());
+        }
+    }
+
+    /**
+     * Migrates the next batch of users after the checkpoint. Returns false if it stopped at a user
+     * whose array kept changing while it was migrated; the checkpoint then stays before that user,
+     * so the next run starts with it.
+     */
+    boolean migrateBatch(JobCheckpoint checkpoint) {
+        MongoCollection<Document> users = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class));
+        MongoCollection<Document> entries = mongoTemplate.getCollection(
+                mongoTemplate.getCollectionName(JournalEntry.class));
+
+        List<Bson> filters = new ArrayList<>();
+        filters.add(Filters.exists("journalEntries.0"));
+        if (checkpoint.getLastProcessedId() != null) {
+            filters.add(Filters.gt("_id", checkpoint.getLastProcessedId()));
+        }
+        List<Document> batch = users.find(Filters.and(filters))
+                .projection(Projections.include("journalEntries"))
+                .sort(Sorts.ascending("_id"))
+                .limit(batchSize)
+                .into(new ArrayList<>());
+
+        for (Document user : batch) {
+            ObjectId userId = user.getObjectId("_id");
+            if (!migrateUser(users, entries, userId, entryIds(user))) {
+                log.warn("Owner backfill: journal entries of user {} kept changing, retrying on the next run",
+                        userId);
+                return false;
+            }
+            checkpoint.setLastProcessedId(userId);
+            checkpoint.setProcessed(checkpoint.getProcessed() + 1);
+        }
+
+        if (batch.size() < batchSize) {
+            checkpoint.setCompleted(true);
+        }
+        return true;
+    }
+
+    /**
+     * Stamps the user's legacy entries and empties the array, but only if it still holds as many
+     * references as were stamped. If entries were added or removed in between, the array is read
+     * again and the user migrated with what it holds now. Returns false if it never settled.
+     */
+    private boolean migrateUser(MongoCollection<Document> users, MongoCollection<Document> entries, ObjectId userId,
+            List<ObjectId> entryIds) {
+        for (int attempt = 0; attempt < MAX_USER_ATTEMPTS; attempt++) {
+            stampOwner(entries, userId, entryIds);
+            if (users.updateOne(Filters.and(Filters.eq("_id", userId), Filters.size("journalEntries", entryIds.size())),
+                    Updates.set("journalEntries", List.of())).getMatchedCount() > 0) {
+                return true;
+            }
+            Document current = users.find(Filters.eq("_id", userId))
+                    .projection(Projections.include("journalEntries"))
+                    .first();
+            if (current == null) {
+                // the user was deleted meanwhile
+                return true;
+            }
+            entryIds = entryIds(current);
+            if (entryIds.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<ObjectId> entryIds(Document user) {
+        List<DBRef> refs = user.getList("journalEntries", DBRef.class, List.of());
+        List<ObjectId> entryIds = new ArrayList<>(refs.size());
+        for (DBRef ref : refs) {
+            entryIds.add((ObjectId) ref.getId());
+        }
+        return entryIds;
+    }
+
+    /**
+     * Sets the owner on those of the entries that have none yet and adds them to the owner's
+     * sentiment counters. If another write stamped some of them in between, the counters are
+     * recomputed instead, since it is no longer known which entries this call stamped.
+     */
+    private void stampOwner(MongoCollection<Document> entries, ObjectId userId, List<ObjectId> entryIds) {
+        Bson unowned = Filters.and(Filters.in("_id", entryIds), Filters.exists("ownerId", false));
+        List<Document> candidates = entries.find(unowned)
+                .projection(Projections.include("date", "sentiment"))
+                .into(new ArrayList<>());
+        if (candidates.isEmpty()) {
+            return;
+        }
+        List<ObjectId> candidateIds = new ArrayList<>(candidates.size());
+        SentimentRollupDelta delta = new SentimentRollupDelta();
+        for (Document entry : candidates) {
+            candidateIds.add(entry.getObjectId("_id"));
+            delta.added(toLocalDateTime(entry.getDate("date")), toSentiment(entry.getString("sentiment")));
+        }
+        long stamped = entries.updateMany(Filters.and(Filters.in("_id", candidateIds),
+                Filters.exists("ownerId", false)), Updates.set("ownerId", userId)).getModifiedCount();
+        if (stamped == candidates.size()) {
+            sentimentRollupService.record(userId, delta);
+        } else {
+            sentimentRollupService.rebuildOwner(userId);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        // the zone Spring Data used to store the LocalDateTime
+        return date == null ? null : LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+
+    private static Sentiment toSentiment(String name) {
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Sentiment.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.developmentprep.journalApp.model;
+
+import com.developmentprep.journalApp.api.response.WeatherResponse;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Weather as cached for a city, with when it was fetched from weatherstack so readers can tell
+ * how stale it is. Values cached before fetchedAt existed read back with a null weather.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CachedWeather {
+
+    private WeatherResponse weather;
+
+    // epoch millis
+    private long fetchedAt;
+}
@@ -0,0 +1,67 @@
+package com.developmentprep.journalApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a user's change feed: how far the client has read the changed entries and the
+ * tombstones, each ordered by (time asc, id asc). A null id means "everything from that time
+ * on", which is how a caught-up client re-reads a short overlap window on its next poll.
+ * Clients only ever see the encoded, opaque form.
+ */
+@Data
+@AllArgsConstructor
+public class JournalChangeToken {
+
+    private static final String SEPARATOR = "|";
+
+    private LocalDateTime entriesAfter;
+
+    private ObjectId entriesAfterId;
+
+    private LocalDateTime deletesAfter;
+
+    private ObjectId deletesAfterId;
+
+    public static JournalChangeToken at(LocalDateTime time) {
+        return new JournalChangeToken(time, null, time, null);
+    }
+
+    public LocalDateTime oldest() {
+        return entriesAfter.isBefore(deletesAfter) ? entriesAfter : deletesAfter;
+    }
+
+    public String encode() {
+        String raw = entriesAfter + SEPARATOR + hex(entriesAfterId) + SEPARATOR
+                + deletesAfter + SEPARATOR + hex(deletesAfterId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static JournalChangeToken decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("Malformed change token");
+            }
+            return new JournalChangeToken(LocalDateTime.parse(parts[0]), id(parts[1]),
+                    LocalDateTime.parse(parts[2]), id(parts[3]));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed change token", e);
+        }
+    }
+
+    private static String hex(ObjectId id) {
+        return id != null ? id.toHexString() : "";
+    }
+
+    private static ObjectId id(String hex) {
+        return hex.isEmpty() ? null : new ObjectId(hex);
+    }
+}
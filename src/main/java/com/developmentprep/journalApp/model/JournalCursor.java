@@ -0,0 +1,49 @@
+package com.developmentprep.journalApp.model;
+
+import com.developmentprep.journalApp.entity.JournalEntry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a (date desc, id desc) ordered listing of journal entries.
+ * Clients only ever see the encoded, opaque form.
+ */
+@Data
+@AllArgsConstructor
+public class JournalCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private LocalDateTime date;
+
+    private ObjectId id;
+
+    public static JournalCursor of(JournalEntry entry) {
+        return new JournalCursor(entry.getDate(), entry.getId());
+    }
+
+    public String encode() {
+        String raw = date + SEPARATOR + id.toHexString();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static JournalCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new JournalCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    new ObjectId(raw.substring(separator + 1)));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Malformed cursor", e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.developmentprep.journalApp.model;
+
+import com.developmentprep.journalApp.enums.Sentiment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters on a user's journal listing. from is inclusive, to is exclusive;
+ * any of the fields may be null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalEntryFilter {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Sentiment sentiment;
+}
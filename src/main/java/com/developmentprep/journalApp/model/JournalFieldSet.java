@@ -0,0 +1,80 @@
+package com.developmentprep.journalApp.model;
+
+import com.developmentprep.journalApp.entity.JournalEntry;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The subset of journal entry fields a client asked for, either through fields=a,b,c or
+ * view=summary. It is pushed down to Mongo as a projection and used again to render only
+ * those fields in the response.
+ */
+@Getter
+public class JournalFieldSet {
+
+    public static final List<String> ALLOWED = List.of("id", "title", "content", "date", "sentiment", "version");
+    public static final List<String> SUMMARY = List.of("id", "title", "date", "sentiment");
+
+    private final Set<String> fields;
+
+    private JournalFieldSet(Set<String> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Returns null when neither parameter is given, meaning the full entry.
+     */
+    public static JournalFieldSet parse(String fields, String view) {
+        if (fields != null && !fields.isBlank()) {
+            Set<String> requested = new LinkedHashSet<>();
+            for (String field : fields.split(",")) {
+                String name = field.trim();
+                if (!ALLOWED.contains(name)) {
+                    throw new IllegalArgumentException("Unknown field: " + name);
+                }
+                requested.add(name);
+            }
+            return new JournalFieldSet(requested);
+        }
+        if (view != null && !view.isBlank()) {
+            if (!"summary".equalsIgnoreCase(view.trim())) {
+                throw new IllegalArgumentException("Unknown view: " + view);
+            }
+            return new JournalFieldSet(new LinkedHashSet<>(SUMMARY));
+        }
+        return null;
+    }
+
+    /**
+     * Document field names to project, translated from the API names.
+     */
+    public String[] documentFields() {
+        return fields.stream().map(x -> "id".equals(x) ? "_id" : x).toArray(String[]::new);
+    }
+
+    public Map<String, Object> render(JournalEntry entry) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        for (String field : fields) {
+            switch (field) {
+                case "id" -> view.put("id", entry.getId() != null ? entry.getId().toHexString() : null);
+                case "title" -> view.put("title", entry.getTitle());
+                case "content" -> view.put("content", entry.getContent());
+                case "date" -> view.put("date", entry.getDate());
+                case "sentiment" -> view.put("sentiment", entry.getSentiment());
+                case "version" -> view.put("version", entry.getVersion());
+                default -> throw new IllegalStateException("Unexpected field: " + field);
+            }
+        }
+        return view;
+    }
+
+    @Override
+    public String toString() {
+        return String.join(",", fields);
+    }
+}
@@ -0,0 +1,21 @@
+package com.developmentprep.journalApp.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.bson.types.ObjectId;
+
+import java.util.List;
+
+/**
+ * Lightweight view of a user for journal queries: the user's id and the raw ids still
+ * referenced by the legacy journalEntries array, read without resolving the DBRefs.
+ * The legacy list is empty once the user has been through OwnerBackfillMigration.
+ */
+@Data
+@AllArgsConstructor
+public class JournalOwner {
+
+    private ObjectId userId;
+
+    private List<ObjectId> legacyEntryIds;
+}
@@ -14,4 +14,7 @@ public class SentimentData {
     private  String email;
 
     private String sentiment;
+
+    // week the summary is for (its last Sunday); consumers dedupe on email and week
+    private String week;
 }
@@ -0,0 +1,64 @@
+package com.developmentprep.journalApp.model;
+
+import com.developmentprep.journalApp.enums.Sentiment;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Changes to a user's daily sentiment counters collected from one or more entry writes, so they
+ * can be applied as one $inc per touched day. Entries without a date or sentiment are not counted.
+ */
+public class SentimentRollupDelta {
+
+    private final Map<LocalDate, Map<Sentiment, Long>> days = new LinkedHashMap<>();
+
+    public SentimentRollupDelta added(LocalDateTime date, Sentiment sentiment) {
+        return change(date, sentiment, 1);
+    }
+
+    public SentimentRollupDelta removed(LocalDateTime date, Sentiment sentiment) {
+        return change(date, sentiment, -1);
+    }
+
+    public SentimentRollupDelta changed(LocalDateTime date, Sentiment from, Sentiment to) {
+        if (from != to) {
+            removed(date, from);
+            added(date, to);
+        }
+        return this;
+    }
+
+    public SentimentRollupDelta plus(SentimentRollupDelta other) {
+        other.days.forEach((day, counts) -> counts.forEach((sentiment, by) ->
+                change(day.atStartOfDay(), sentiment, by)));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return days.isEmpty();
+    }
+
+    public void forEachDay(BiConsumer<LocalDate, Map<Sentiment, Long>> action) {
+        days.forEach(action);
+    }
+
+    private SentimentRollupDelta change(LocalDateTime date, Sentiment sentiment, long by) {
+        if (date == null || sentiment == null) {
+            return this;
+        }
+        Map<Sentiment, Long> counts = days.computeIfAbsent(date.toLocalDate(), d -> new EnumMap<>(Sentiment.class));
+        long total = counts.merge(sentiment, by, Long::sum);
+        if (total == 0) {
+            counts.remove(sentiment);
+            if (counts.isEmpty()) {
+                days.remove(date.toLocalDate());
+            }
+        }
+        return this;
+    }
+}
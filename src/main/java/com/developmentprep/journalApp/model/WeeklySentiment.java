@@ -0,0 +1,20 @@
+package com.developmentprep.journalApp.model;
+
+import com.developmentprep.journalApp.enums.Sentiment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.bson.types.ObjectId;
+
+/**
+ * One row of the weekly sentiment job: a user's most frequent sentiment over the period.
+ */
+@Data
+@AllArgsConstructor
+public class WeeklySentiment {
+
+    private ObjectId userId;
+
+    private String email;
+
+    private Sentiment sentiment;
+}
@@ -0,0 +1,18 @@
+package com.developmentprep.journalApp.repository;
+
+import com.developmentprep.journalApp.entity.AccountPurge;
+import com.developmentprep.journalApp.enums.PurgeStatus;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface AccountPurgeRepository extends MongoRepository<AccountPurge, ObjectId> {
+
+    List<AccountPurge> findTop50ByOrderByRequestedAtDesc();
+
+    List<AccountPurge> findTop50ByStatusInAndUpdatedAtBeforeAndAttemptsLessThanOrderByUpdatedAtAsc(
+            Collection<PurgeStatus> statuses, LocalDateTime updatedBefore, int maxAttempts);
+}
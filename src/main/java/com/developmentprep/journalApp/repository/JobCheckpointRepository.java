@@ -0,0 +1,8 @@
+package com.developmentprep.journalApp.repository;
+
+import com.developmentprep.journalApp.entity.JobCheckpoint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface JobCheckpointRepository extends MongoRepository<JobCheckpoint, String> {
+
+}
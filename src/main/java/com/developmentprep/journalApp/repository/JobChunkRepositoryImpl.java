@@ -0,0 +1,112 @@
+package com.developmentprep.journalApp.repository;
+
+import com.developmentprep.journalApp.entity.JobChunk;
+import com.developmentprep.journalApp.enums.ChunkStatus;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Repository
+public class JobChunkRepositoryImpl {
+
+    private final MongoTemplate mongoTemplate;
+
+    public JobChunkRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Adds the chunk (after, upTo] to the job as PENDING. Keyed by (job, after), so a planner
+     * that repeats a step after a crash does not create the chunk twice.
+     */
+    public void addChunk(String job, ObjectId after, ObjectId upTo) {
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .setOnInsert("upTo", upTo)
+                .setOnInsert("status", ChunkStatus.PENDING)
+                .setOnInsert("attempts", 0)
+                .setOnInsert("createdAt", now)
+                .setOnInsert("updatedAt", now);
+        mongoTemplate.upsert(new Query(Criteria.where("job").is(job).and("after").is(after)), update, JobChunk.class);
+    }
+
+    /**
+     * Atomically claims the job's next pending chunk, or a claimed one whose lease has run out
+     * while it still has attempts left, for owner. Returns null when there is nothing to claim
+     * right now.
+     */
+    public JobChunk claimNext(String job, String owner, Duration lease, int maxAttempts) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = new Query(claimable(job, now, maxAttempts)).with(Sort.by(Sort.Direction.ASC, "_id"));
+        Update update = new Update()
+                .set("status", ChunkStatus.CLAIMED)
+                .set("claimedBy", owner)
+                .set("leaseUntil", now.plus(lease))
+                .set("updatedAt", now)
+                .inc("attempts", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                JobChunk.class);
+    }
+
+    /**
+     * Marks a chunk done, as long as owner's claim on it has not been taken over.
+     */
+    public void complete(ObjectId chunkId, String owner, long processed) {
+        mongoTemplate.updateFirst(claimedBy(chunkId, owner), new Update()
+                .set("status", ChunkStatus.DONE)
+                .set("processed", processed)
+                .set("updatedAt", LocalDateTime.now()), JobChunk.class);
+    }
+
+    /**
+     * Puts a chunk that failed back up for grabs, or fails it for good after maxAttempts.
+     */
+    public void fail(JobChunk chunk, String owner, int maxAttempts, String error) {
+        ChunkStatus status = chunk.getAttempts() >= maxAttempts ? ChunkStatus.FAILED : ChunkStatus.PENDING;
+        mongoTemplate.updateFirst(claimedBy(chunk.getId(), owner), new Update()
+                .set("status", status)
+                .set("error", error)
+                .set("updatedAt", LocalDateTime.now()), JobChunk.class);
+    }
+
+    /**
+     * Fails for good the chunks whose lease ran out on their last attempt: their workers died or
+     * hung every time, so claiming them again would never let the job finish. Returns how many.
+     */
+    public long failExhausted(String job, int maxAttempts) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = new Query(Criteria.where("job").is(job)
+                .and("status").is(ChunkStatus.CLAIMED)
+                .and("leaseUntil").lt(now)
+                .and("attempts").gte(maxAttempts));
+        return mongoTemplate.updateMulti(query, new Update()
+                .set("status", ChunkStatus.FAILED)
+                .set("error", "Lease ran out on each of " + maxAttempts + " attempts")
+                .set("updatedAt", now), JobChunk.class).getModifiedCount();
+    }
+
+    public boolean hasClaimable(String job, int maxAttempts) {
+        return mongoTemplate.exists(new Query(claimable(job, LocalDateTime.now(), maxAttempts)), JobChunk.class);
+    }
+
+    private Criteria claimable(String job, LocalDateTime now, int maxAttempts) {
+        return new Criteria().andOperator(Criteria.where("job").is(job), new Criteria().orOperator(
+                Criteria.where("status").is(ChunkStatus.PENDING),
+                Criteria.where("status").is(ChunkStatus.CLAIMED).and("leaseUntil").lt(now)
+                        .and("attempts").lt(maxAttempts)));
+    }
+
+    private Query claimedBy(ObjectId chunkId, String owner) {
+        return new Query(Criteria.where("_id").is(chunkId)
+                .and("status").is(ChunkStatus.CLAIMED)
+                .and("claimedBy").is(owner));
+    }
+}
@@ -0,0 +1,53 @@
+package com.developmentprep.journalApp.repository;
+
+import com.developmentprep.journalApp.entity.JobLease;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Repository
+public class JobLeaseRepositoryImpl {
+
+    private final MongoTemplate mongoTemplate;
+
+    public JobLeaseRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Takes or extends the named lease for owner. Succeeds if nobody holds it, the holder's
+     * lease has expired, or owner already holds it. Atomic across nodes: the lease document is
+     * either matched and updated by exactly one findAndModify, or created by exactly one upsert
+     * while the others fail on the duplicate id.
+     */
+    public boolean tryAcquire(String name, String owner, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        Query query = new Query(new Criteria().andOperator(Criteria.where("_id").is(name),
+                new Criteria().orOperator(Criteria.where("expiresAt").lt(now), Criteria.where("owner").is(owner))));
+        Update update = new Update()
+                .set("owner", owner)
+                .set("acquiredAt", now)
+                .set("expiresAt", now.plus(ttl));
+        try {
+            return mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), JobLease.class) != null;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gives the lease up early, but only if owner still holds it.
+     */
+    public void release(String name, String owner) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(name).and("owner").is(owner)),
+                new Update().set("expiresAt", LocalDateTime.now()), JobLease.class);
+    }
+}
@@ -0,0 +1,12 @@
+package com.developmentprep.journalApp.repository;
+
+import com.developmentprep.journalApp.entity.JobRun;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface JobRunRepository extends MongoRepository<JobRun, ObjectId> {
+
+    List<JobRun> findTop50ByOrderByStartedAtDesc();
+}
@@ -0,0 +1,453 @@
+package com.developmentprep.journalApp.repository;
+
+import com.developmentprep.journalApp.dto.SentimentAnalytics;
+import com.developmentprep.journalApp.entity.JournalEntry;
+import com.developmentprep.journalApp.entity.JournalTombstone;
+import com.developmentprep.journalApp.model.JournalCursor;
+import com.developmentprep.journalApp.model.JournalEntryFilter;
+import com.developmentprep.journalApp.model.JournalFieldSet;
+import com.developmentprep.journalApp.enums.Sentiment;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Facet;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+@Repository
+public class JournalEntryRepositoryImpl {
+
+    private final MongoTemplate mongoTemplate;
+
+    public JournalEntryRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Newest-first page of the owner's entries starting strictly after the given cursor.
+     * Ordering is (date desc, _id desc) so the cursor position is unique and stable.
+     */
+    public List<JournalEntry> findPage(JournalOwner owner, JournalEntryFilter filter, JournalCursor after, int limit,
+            JournalFieldSet fields) {
+        Query query = pageQuery(owner, filter, after, limit);
+        if (fields != null) {
+            // _id and date are always read: the next-page cursor is built from them
+            query.fields().include(fields.documentFields()).include("_id", "date");
+        }
+        return mongoTemplate.find(query, JournalEntry.class);
+    }
+
+    /**
+     * Query plan Mongo picks for a page query, as returned by explain.
+     */
+    public Document explainPage(JournalOwner owner, JournalEntryFilter filter, int limit) {
+        Query query = pageQuery(owner, filter, null, limit);
+        MongoPersistentEntity<?> entity = mongoTemplate.getConverter().getMappingContext()
+                .getRequiredPersistentEntity(JournalEntry.class);
+        Document mappedQuery = new QueryMapper(mongoTemplate.getConverter())
+                .getMappedObject(query.getQueryObject(), entity);
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(JournalEntry.class))
+                .find(mappedQuery)
+                .sort(query.getSortObject())
+                .limit(limit)
+                .explain();
+    }
+
+    private Query pageQuery(JournalOwner owner, JournalEntryFilter filter, JournalCursor after, int limit) {
+        List<Criteria> criteria = new ArrayList<>();
+        criteria.add(ownedBy(owner));
+        if (filter != null) {
+            if (filter.getSentiment() != null) {
+                criteria.add(Criteria.where("sentiment").is(filter.getSentiment()));
+            }
+            if (filter.getFrom() != null || filter.getTo() != null) {
+                Criteria date = Criteria.where("date");
+                if (filter.getFrom() != null) {
+                    date = date.gte(filter.getFrom());
+                }
+                if (filter.getTo() != null) {
+                    date = date.lt(filter.getTo());
+                }
+                criteria.add(date);
+            }
+        }
+        if (after != null) {
+            criteria.add(before(after));
+        }
+        return new Query(new Criteria().andOperator(criteria))
+                .with(Sort.by(Sort.Direction.DESC, "date", "_id"))
+                .limit(limit);
+    }
+
+    /**
+     * Cursor-backed stream over all of the owner's entries, newest first. Only one cursor batch
+     * is held in memory at a time; the caller must close the stream.
+     */
+    public Stream<JournalEntry> streamOwned(JournalOwner owner, int batchSize) {
+        Query query = new Query(ownedBy(owner))
+                .with(Sort.by(Sort.Direction.DESC, "date", "_id"))
+                .cursorBatchSize(batchSize);
+        return mongoTemplate.stream(query, JournalEntry.class);
+    }
+
+    /**
+     * Writes the entries for the owner in one unordered bulk operation. Entries with an id replace
+     * the owner's existing entry with that id (or are inserted under it), so re-importing the same
+     * export is idempotent. Entries without an id get a new one. Tombstones of restored entries
+     * are removed once their write has gone through. Returns the entries that were written; a
+     * replaced entry comes back without a version, as its new version is not known here.
+     */
+    public List<JournalEntry> upsertAllOwned(List<JournalEntry> entries, JournalOwner owner) {
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, JournalEntry.class);
+        LocalDateTime now = LocalDateTime.now();
+        // id of the entry each write restores, by position in the bulk; null for inserts
+        List<ObjectId> restoredIds = new ArrayList<>(entries.size());
+        for (JournalEntry entry : entries) {
+            entry.setOwnerId(owner.getUserId());
+            entry.setUpdatedAt(now);
+            if (entry.getId() == null) {
+                entry.setId(new ObjectId());
+                entry.setVersion(0L);
+                bulkOps.insert(entry);
+                restoredIds.add(null);
+            } else {
+                // overwrite through $set/$inc so a replaced entry still gets a new version
+                Update update = new Update()
+                        .set("ownerId", owner.getUserId())
+                        .set("title", entry.getTitle())
+                        .set("content", entry.getContent())
+                        .set("date", entry.getDate())
+                        .set("sentiment", entry.getSentiment())
+                        .set("updatedAt", now)
+                        .inc("version", 1);
+                bulkOps.upsert(ownedEntry(entry.getId(), owner), update);
+                entry.setVersion(null);
+                restoredIds.add(entry.getId());
+            }
+        }
+        List<JournalEntry> written = new ArrayList<>(entries);
+        try {
+            bulkOps.execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                restoredIds.set(error.getIndex(), null);
+                written.set(error.getIndex(), null);
+            }
+            written.removeIf(Objects::isNull);
+        }
+        List<ObjectId> restored = restoredIds.stream().filter(Objects::nonNull).toList();
+        if (!restored.isEmpty()) {
+            // a restored entry is live again, so syncing clients must not be told it was deleted
+            mongoTemplate.remove(new Query(Criteria.where("_id").in(restored).and("ownerId").is(owner.getUserId())),
+                    JournalTombstone.class);
+        }
+        return written;
+    }
+
+    /**
+     * Fetches the entry only if it belongs to the owner; ownership check and read are one query.
+     */
+    public JournalEntry findOwned(ObjectId id, JournalOwner owner, JournalFieldSet fields) {
+        Query query = ownedEntry(id, owner);
+        if (fields != null) {
+            query.fields().include(fields.documentFields());
+        }
+        return mongoTemplate.findOne(query, JournalEntry.class);
+    }
+
+    /**
+     * Applies the update to the owner's entry and returns the entry as it was before, with only
+     * its owner, date and sentiment read, or null when there is no such entry for this owner.
+     */
+    public JournalEntry updateOwnedReturningPrevious(ObjectId id, JournalOwner owner, Update update) {
+        Query query = ownedEntry(id, owner);
+        query.fields().include("_id", "ownerId", "date", "sentiment");
+        // stamp ownership on the way through so legacy entries stop depending on the user document
+        update.set("ownerId", owner.getUserId()).set("updatedAt", LocalDateTime.now()).inc("version", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(false),
+                JournalEntry.class);
+    }
+
+    /**
+     * Applies the update only if the owner's entry is still at expectedVersion, bumping the
+     * version in the same write. Returns the entry as it was at expectedVersion, with only its
+     * id, owner, version, date and sentiment read, or null when nothing matched, which is either a
+     * missing entry or a version conflict.
+     */
+    public JournalEntry updateOwnedIfVersion(ObjectId id, JournalOwner owner, long expectedVersion, Update update) {
+        Criteria version = expectedVersion == 0
+                ? new Criteria().orOperator(Criteria.where("version").is(0L), Criteria.where("version").exists(false))
+                : Criteria.where("version").is(expectedVersion);
+        Query query = new Query(new Criteria().andOperator(Criteria.where("_id").is(id), ownedBy(owner), version));
+        query.fields().include("_id", "ownerId", "version", "date", "sentiment");
+        update.set("ownerId", owner.getUserId()).set("updatedAt", LocalDateTime.now()).inc("version", 1);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(false),
+                JournalEntry.class);
+    }
+
+    public boolean existsOwned(ObjectId id, JournalOwner owner) {
+        return mongoTemplate.exists(ownedEntry(id, owner), JournalEntry.class);
+    }
+
+    /**
+     * Deletes the owner's entry and leaves a tombstone for the change feed. Returns the deleted
+     * entry with only its id, owner, date and sentiment read, or null if the owner had no such entry.
+     */
+    public JournalEntry deleteOwned(ObjectId id, JournalOwner owner) {
+        JournalEntry removed = removeOwned(id, owner);
+        if (removed != null) {
+            addTombstones(List.of(id), owner);
+        }
+        return removed;
+    }
+
+    /**
+     * Deletes the owner's entry without a tombstone, for callers that record tombstones in bulk.
+     * Returns the deleted entry with only its id, owner, date and sentiment read, or null if the
+     * owner had no such entry.
+     */
+    public JournalEntry removeOwned(ObjectId id, JournalOwner owner) {
+        Query query = ownedEntry(id, owner);
+        query.fields().include("_id", "ownerId", "date", "sentiment");
+        return mongoTemplate.findAndRemove(query, JournalEntry.class);
+    }
+
+    /**
+     * Records the ids as deleted now. Upserts, so an id deleted, restored and deleted again
+     * keeps a single tombstone with the latest time.
+     */
+    public void addTombstones(Collection<ObjectId> ids, JournalOwner owner) {
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, JournalTombstone.class);
+        LocalDateTime now = LocalDateTime.now();
+        for (ObjectId id : ids) {
+            bulkOps.upsert(new Query(Criteria.where("_id").is(id)),
+                    new Update().set("ownerId", owner.getUserId()).set("deletedAt", now));
+        }
+        bulkOps.execute();
+    }
+
+    /**
+     * The owner's entries written at or after the given time (strictly after afterId at exactly
+     * that time, when given), oldest change first.
+     */
+    public List<JournalEntry> findChangedSince(JournalOwner owner, LocalDateTime since, ObjectId afterId, int limit) {
+        Query query = new Query(new Criteria().andOperator(ownedBy(owner), after("updatedAt", since, afterId)))
+                .with(Sort.by(Sort.Direction.ASC, "updatedAt", "_id"))
+                .limit(limit);
+        return mongoTemplate.find(query, JournalEntry.class);
+    }
+
+    /**
+     * Tombstones of the owner's entries deleted at or after the given time, in the same order
+     * and with the same position semantics as {@link #findChangedSince}.
+     */
+    public List<JournalTombstone> findDeletedSince(JournalOwner owner, LocalDateTime since, ObjectId afterId,
+            int limit) {
+        Query query = new Query(new Criteria().andOperator(
+                Criteria.where("ownerId").is(owner.getUserId()), after("deletedAt", since, afterId)))
+                .with(Sort.by(Sort.Direction.ASC, "deletedAt", "_id"))
+                .limit(limit);
+        return mongoTemplate.find(query, JournalTombstone.class);
+    }
+
+    /**
+     * Deletes all of the owner's entries in chunks of at most chunkSize ids per deleteMany,
+     * so a very large account never turns into one unbounded write. The running total is
+     * reported after every chunk.
+     */
+    public long deleteAllOwned(JournalOwner owner, int chunkSize, LongConsumer progress) {
+        long deleted = 0;
+        while (true) {
+            Query chunk = new Query(ownedBy(owner)).limit(chunkSize);
+            chunk.fields().include("_id");
+            List<ObjectId> ids = mongoTemplate.find(chunk, JournalEntry.class).stream()
+                    .map(JournalEntry::getId)
+                    .toList();
+            if (ids.isEmpty()) {
+                return deleted;
+            }
+            deleted += mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), JournalEntry.class)
+                    .getDeletedCount();
+            progress.accept(deleted);
+        }
+    }
+
+    /**
+     * Activity of all users over the days from..to (inclusive), in one aggregation: the entries
+     * of the window are read once through date_sentiment_owner_idx, which holds every field the
+     * pipeline needs, and a $facet computes the sentiment distribution, the distinct writers and the
+     * per-day entry and writer counts from that single pass. Entries not yet backfilled with an
+     * ownerId count as entries but not as writers.
+     */
+    public SentimentAnalytics sentimentAnalytics(LocalDate from, LocalDate to) {
+        ZoneId zone = ZoneId.systemDefault();
+        // same conversion Spring Data applies when it writes LocalDateTime fields
+        Date start = Date.from(from.atStartOfDay(zone).toInstant());
+        Date end = Date.from(to.plusDays(1).atStartOfDay(zone).toInstant());
+        Bson byDay = new Document("$dateToString", new Document("format", "%Y-%m-%d")
+                .append("date", "$date").append("timezone", zone.getId()));
+        Document isWriter = new Document("$cond", List.of(new Document("$ifNull", List.of("$_id.ownerId", false)), 1, 0));
+
+        List<Bson> pipeline = List.of(
+                Aggregates.match(Filters.and(Filters.gte("date", start), Filters.lt("date", end))),
+                Aggregates.project(Projections.fields(Projections.excludeId(),
+                        Projections.include("sentiment", "ownerId"), Projections.computed("day", byDay))),
+                Aggregates.facet(
+                        new Facet("distribution",
+                                Aggregates.match(Filters.ne("sentiment", null)),
+                                Aggregates.group("$sentiment", Accumulators.sum("count", 1))),
+                        new Facet("writers",
+                                Aggregates.match(Filters.ne("ownerId", null)),
+                                Aggregates.group("$ownerId"),
+                                Aggregates.count("count")),
+                        new Facet("days",
+                                Aggregates.group(new Document("day", "$day").append("ownerId", "$ownerId"),
+                                        Accumulators.sum("entries", 1)),
+                                Aggregates.group("$_id.day", Accumulators.sum("entries", "$entries"),
+                                        Accumulators.sum("writers", isWriter)),
+                                Aggregates.sort(Sorts.ascending("_id")))));
+
+        Document result = mongoTemplate.getCollection(mongoTemplate.getCollectionName(JournalEntry.class))
+                .aggregate(pipeline)
+                .allowDiskUse(true)
+                .first();
+
+        Map<Sentiment, Long> distribution = new EnumMap<>(Sentiment.class);
+        long entries = 0;
+        long writers = 0;
+        List<SentimentAnalytics.Day> days = new ArrayList<>();
+        if (result != null) {
+            for (Document row : result.getList("distribution", Document.class)) {
+                distribution.put(Sentiment.valueOf(row.getString("_id")), ((Number) row.get("count")).longValue());
+            }
+            for (Document row : result.getList("writers", Document.class)) {
+                writers = ((Number) row.get("count")).longValue();
+            }
+            for (Document row : result.getList("days", Document.class)) {
+                long dayEntries = ((Number) row.get("entries")).longValue();
+                entries += dayEntries;
+                days.add(new SentimentAnalytics.Day(LocalDate.parse(row.getString("_id")), dayEntries,
+                        ((Number) row.get("writers")).longValue()));
+            }
+        }
+        return new SentimentAnalytics(from, to, entries, writers, distribution, days);
+    }
+
+    /**
+     * Sets a classified sentiment on the entry, provided it still has none and has not been
+     * written since it was classified (same version; not checked when version is null, for entries
+     * whose version is not known). Counts as a write: bumps the version and updatedAt so clients
+     * pick it up through the change feed. Returns whether it was set.
+     */
+    public boolean setClassifiedSentiment(ObjectId id, Long version, Sentiment sentiment) {
+        return mongoTemplate.updateFirst(unclassifiedAt(id, version), classifiedAs(sentiment, LocalDateTime.now()),
+                JournalEntry.class).getModifiedCount() > 0;
+    }
+
+    /**
+     * Bulk form of setClassifiedSentiment for entries whose sentiment field holds the classified
+     * value. Returns the number of entries updated.
+     */
+    public int setClassifiedSentiments(List<JournalEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, JournalEntry.class);
+        for (JournalEntry entry : entries) {
+            bulkOps.updateOne(unclassifiedAt(entry.getId(), entry.getVersion()),
+                    classifiedAs(entry.getSentiment(), now));
+        }
+        return bulkOps.execute().getModifiedCount();
+    }
+
+    /**
+     * Entries without a sentiment after the given id (all when null), ascending by id, with only
+     * the fields classification needs.
+     */
+    public List<JournalEntry> findUnclassified(ObjectId after, int limit) {
+        Criteria criteria = Criteria.where("sentiment").is(null);
+        if (after != null) {
+            criteria = criteria.and("_id").gt(after);
+        }
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "_id")).limit(limit);
+        query.fields().include("_id", "ownerId", "title", "content", "date", "version");
+        return mongoTemplate.find(query, JournalEntry.class);
+    }
+
+    private Query unclassifiedAt(ObjectId id, Long version) {
+        Criteria criteria = Criteria.where("_id").is(id).and("sentiment").is(null);
+        if (version != null) {
+            criteria.and("version").is(version);
+        }
+        return new Query(criteria);
+    }
+
+    private Update classifiedAs(Sentiment sentiment, LocalDateTime now) {
+        return new Update().set("sentiment", sentiment).set("updatedAt", now).inc("version", 1);
+    }
+
+    public BulkOperations orderedBulk() {
+        return mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, JournalEntry.class);
+    }
+
+    public Query ownedEntry(ObjectId id, JournalOwner owner) {
+        return new Query(new Criteria().andOperator(Criteria.where("_id").is(id), ownedBy(owner)));
+    }
+
+    /**
+     * Entries are owned through ownerId. Until the owner has been migrated, entries only
+     * referenced from the legacy User.journalEntries array are matched by id as well.
+     */
+    private Criteria ownedBy(JournalOwner owner) {
+        Criteria byOwnerId = Criteria.where("ownerId").is(owner.getUserId());
+        if (owner.getLegacyEntryIds().isEmpty()) {
+            return byOwnerId;
+        }
+        return new Criteria().orOperator(byOwnerId, Criteria.where("_id").in(owner.getLegacyEntryIds()));
+    }
+
+    private Criteria after(String timeField, LocalDateTime time, ObjectId afterId) {
+        if (afterId == null) {
+            return Criteria.where(timeField).gte(time);
+        }
+        return new Criteria().orOperator(
+                Criteria.where(timeField).gt(time),
+                Criteria.where(timeField).is(time).and("_id").gt(afterId));
+    }
+
+    private Criteria before(JournalCursor cursor) {
+        return new Criteria().orOperator(
+                Criteria.where("date").lt(cursor.getDate()),
+                Criteria.where("date").is(cursor.getDate()).and("_id").lt(cursor.getId()));
+    }
+}
@@ -0,0 +1,138 @@
+package com.developmentprep.journalApp.repository;
+
+import com.developmentprep.journalApp.entity.OutboxEmail;
+import com.developmentprep.journalApp.enums.OutboxStatus;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public class OutboxRepositoryImpl {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public OutboxRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Inserts the email; returns false if an email with the same id is already there.
+     */
+    public boolean add(OutboxEmail email) {
+        try {
+            mongoTemplate.insert(email);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Inserts the emails in one round trip, skipping ids that are already there. Returns the
+     * number inserted.
+     */
+    public int addAll(List<OutboxEmail> emails) {
+        if (emails.isEmpty()) {
+            return 0;
+        }
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OutboxEmail.class);
+        bulkOps.insert(emails);
+        try {
+            return bulkOps.execute().getInsertedCount();
+        } catch (BulkOperationException e) {
+            if (e.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                throw e;
+            }
+            return e.getResult().getInsertedCount();
+        }
+    }
+
+    /**
+     * Claims up to limit due emails for one dispatcher: pending ones whose next attempt is due,
+     * and ones a dispatcher claimed but did not finish before its lease ran out. The claim
+     * token makes the claim safe against other dispatchers doing the same at once.
+     */
+    public List<OutboxEmail> claimDue(int limit, Duration lease) {
+        LocalDateTime now = LocalDateTime.now();
+        Criteria due = new Criteria().orOperator(
+                Criteria.where("status").is(OutboxStatus.PENDING).and("nextAttemptAt").lte(now),
+                Criteria.where("status").is(OutboxStatus.PROCESSING).and("leaseUntil").lt(now));
+        Query candidates = new Query(due).with(Sort.by(Sort.Direction.ASC, "nextAttemptAt")).limit(limit);
+        candidates.fields().include("_id");
+        List<String> ids = new ArrayList<>();
+        for (OutboxEmail email : mongoTemplate.find(candidates, OutboxEmail.class)) {
+            ids.add(email.getId());
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String claim = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(new Query(new Criteria().andOperator(Criteria.where("_id").in(ids), due)),
+                new Update().set("status", OutboxStatus.PROCESSING).set("claim", claim)
+                        .set("leaseUntil", now.plus(lease)),
+                OutboxEmail.class);
+        return mongoTemplate.find(new Query(Criteria.where("claim").is(claim)), OutboxEmail.class);
+    }
+
+    /**
+     * Writes the outcome of a dispatched batch, as long as each claim has not been taken over.
+     * Emails whose status is PENDING are rescheduled for their nextAttemptAt.
+     */
+    public void saveOutcomes(List<OutboxEmail> emails) {
+        if (emails.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OutboxEmail.class);
+        for (OutboxEmail email : emails) {
+            bulkOps.updateOne(new Query(Criteria.where("_id").is(email.getId()).and("claim").is(email.getClaim())),
+                    new Update()
+                            .set("status", email.getStatus())
+                            .set("attempts", email.getAttempts())
+                            .set("nextAttemptAt", email.getNextAttemptAt())
+                            .set("lastError", email.getLastError())
+                            .set("sentAt", email.getSentAt())
+                            .set("expireAt", email.getExpireAt())
+                            .unset("claim")
+                            .unset("leaseUntil"));
+        }
+        bulkOps.execute();
+    }
+
+    /**
+     * The email with the given id if the given user queued it, or null. The body is left out.
+     */
+    public OutboxEmail findRequestedBy(String id, String username) {
+        Query query = new Query(Criteria.where("_id").is(id).and("requestedBy").is(username));
+        query.fields().exclude("body");
+        return mongoTemplate.findOne(query, OutboxEmail.class);
+    }
+
+    public long countByStatus(OutboxStatus status) {
+        return mongoTemplate.count(new Query(Criteria.where("status").is(status)), OutboxEmail.class);
+    }
+
+    /**
+     * The pending email that has been due the longest, or null.
+     */
+    public OutboxEmail findOldestDue() {
+        Query query = new Query(Criteria.where("status").is(OutboxStatus.PENDING)
+                .and("nextAttemptAt").lte(LocalDateTime.now()))
+                .with(Sort.by(Sort.Direction.ASC, "nextAttemptAt"));
+        query.fields().include("nextAttemptAt");
+        return mongoTemplate.findOne(query, OutboxEmail.class);
+    }
+}
@@ -0,0 +1,170 @@
+package com.developmentprep.journalApp.repository;
+
+import com.developmentprep.journalApp.entity.DailySentimentRollup;
+import com.developmentprep.journalApp.entity.JournalEntry;
+import com.developmentprep.journalApp.model.SentimentRollupDelta;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+@Repository
+public class SentimentRollupRepositoryImpl {
+
+    private static final int REBUILD_BATCH_SIZE = 500;
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public SentimentRollupRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Applies the delta to the owner's daily counters, one upserted $inc per day.
+     */
+    public void apply(ObjectId ownerId, SentimentRollupDelta delta) {
+        if (delta.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DailySentimentRollup.class);
+        LocalDateTime now = LocalDateTime.now();
+        delta.forEachDay((day, counts) -> {
+            Update update = new Update().set("updatedAt", now);
+            counts.forEach((sentiment, by) -> update.inc("counts." + sentiment.name(), by));
+            bulkOps.upsert(new Query(Criteria.where("ownerId").is(ownerId).and("day").is(day)), update);
+        });
+        bulkOps.execute();
+    }
+
+    /**
+     * The owner's counters for the days in [from, to], oldest first; days without entries have no document.
+     */
+    public List<DailySentimentRollup> findRange(ObjectId ownerId, LocalDate from, LocalDate to) {
+        Query query = new Query(Criteria.where("ownerId").is(ownerId).and("day").gte(from).lte(to))
+                .with(Sort.by(Sort.Direction.ASC, "day"));
+        return mongoTemplate.find(query, DailySentimentRollup.class);
+    }
+
+    public void deleteAllOwned(ObjectId ownerId) {
+        mongoTemplate.remove(new Query(Criteria.where("ownerId").is(ownerId)), DailySentimentRollup.class);
+    }
+
+    /**
+     * Recomputes the counters of one owner, or of everyone when ownerId is null, from
+     * journal_entries: one grouped aggregation streamed back a batch at a time, each
+     * (owner, day) written with its counts replaced, then counters that were neither rebuilt nor
+     * incremented since the rebuild started are removed as stale. A counter incremented after the
+     * rebuild started is left as the increments made it, since the aggregation may or may not
+     * have seen the entry behind the increment; the next rebuild recomputes it. Entries that have
+     * no ownerId yet (not backfilled) are not counted. Returns the number of counters written.
+     */
+    public long rebuild(ObjectId ownerId) {
+        LocalDateTime startedAt = LocalDateTime.now();
+        Criteria match = Criteria.where("sentiment").ne(null).and("date").ne(null);
+        match = ownerId != null ? match.and("ownerId").is(ownerId) : match.and("ownerId").ne(null);
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(match),
+                // day boundaries in the zone Spring Data used to store the LocalDateTime
+                Aggregation.project("ownerId", "sentiment").and(DateOperators.DateToString
+                        .dateOf("date").toString("%Y-%m-%d")
+                        .withTimezone(DateOperators.Timezone.valueOf(ZoneId.systemDefault().getId()))).as("day"),
+                Aggregation.group("ownerId", "day", "sentiment").count().as("count"),
+                Aggregation.sort(Sort.Direction.ASC, "_id.ownerId", "_id.day"))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).cursorBatchSize(REBUILD_BATCH_SIZE).build());
+
+        long written = 0;
+        BulkOperations bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DailySentimentRollup.class);
+        int pending = 0;
+        Document current = null;
+        Document counts = null;
+        try (Stream<Document> rows = mongoTemplate.aggregateStream(aggregation,
+                mongoTemplate.getCollectionName(JournalEntry.class), Document.class)) {
+            // rows arrive sorted by (owner, day), one per sentiment; each day is written once complete
+            for (Document row : (Iterable<Document>) rows::iterator) {
+                Document key = row.get("_id", Document.class);
+                if (current != null && !sameDay(current, key)) {
+                    replace(bulkOps, current, counts, startedAt);
+                    written++;
+                    if (++pending == REBUILD_BATCH_SIZE) {
+                        written -= execute(bulkOps);
+                        bulkOps = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                                DailySentimentRollup.class);
+                        pending = 0;
+                    }
+                    current = null;
+                }
+                if (current == null) {
+                    current = key;
+                    counts = new Document();
+                }
+                counts.append(key.getString("sentiment"), ((Number) row.get("count")).longValue());
+            }
+        }
+        if (current != null) {
+            replace(bulkOps, current, counts, startedAt);
+            written++;
+            pending++;
+        }
+        if (pending > 0) {
+            written -= execute(bulkOps);
+        }
+
+        Criteria stale = Criteria.where("updatedAt").lt(startedAt);
+        if (ownerId != null) {
+            stale = stale.and("ownerId").is(ownerId);
+        }
+        mongoTemplate.remove(new Query(stale), DailySentimentRollup.class);
+        return written;
+    }
+
+    private void replace(BulkOperations bulkOps, Document key, Document counts, LocalDateTime rebuiltAt) {
+        LocalDate day = LocalDate.parse(key.getString("day"));
+        // a counter written since the rebuild started does not match, and the upsert's insert
+        // then fails on owner_day_idx instead of overwriting it
+        Criteria notTouched = new Criteria().orOperator(
+                Criteria.where("updatedAt").lt(rebuiltAt), Criteria.where("updatedAt").exists(false));
+        bulkOps.upsert(new Query(Criteria.where("ownerId").is(key.getObjectId("ownerId")).and("day").is(day)
+                        .andOperator(notTouched)),
+                new Update().set("counts", counts).set("updatedAt", rebuiltAt));
+    }
+
+    /**
+     * Runs the batch of replacements and returns how many were skipped because the counter had
+     * been written since the rebuild started.
+     */
+    private static int execute(BulkOperations bulkOps) {
+        try {
+            bulkOps.execute();
+            return 0;
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() != DUPLICATE_KEY) {
+                    throw e;
+                }
+            }
+            return e.getErrors().size();
+        }
+    }
+
+    private static boolean sameDay(Document a, Document b) {
+        return Objects.equals(a.get("ownerId"), b.get("ownerId")) && Objects.equals(a.get("day"), b.get("day"));
+    }
+}
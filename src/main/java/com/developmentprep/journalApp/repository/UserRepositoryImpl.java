@@ -1,12 +1,35 @@
 package com.developmentprep.journalApp.repository;
 
+import com.developmentprep.journalApp.entity.DailySentimentRollup;
+import com.developmentprep.journalApp.entity.JournalEntry;
 import com.developmentprep.journalApp.entity.User;
+import com.developmentprep.journalApp.enums.Sentiment;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.model.WeeklySentiment;
+import com.mongodb.DBRef;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Repository
 public class UserRepositoryImpl {
@@ -24,4 +47,122 @@ public class UserRepositoryImpl {
         query.addCriteria(Criteria.where("sentimentAnalysis").is(true));
         return mongoTemplate.find(query, User.class);
     }
+
+    /**
+     * Ids of opted-in users after the given id (all of them when null), ascending, at most limit.
+     * Used to cut the weekly sentiment job into id-range chunks.
+     */
+    public List<ObjectId> findSentimentUserIds(ObjectId after, int limit) {
+        Bson filter = after == null ? sentimentUsers() : Filters.and(sentimentUsers(), Filters.gt("_id", after));
+        List<ObjectId> ids = new ArrayList<>();
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+                .find(filter)
+                .projection(Projections.include("_id"))
+                .sort(Sorts.ascending("_id"))
+                .limit(limit)
+                .forEach(user -> ids.add(user.getObjectId("_id")));
+        return ids;
+    }
+
+    /**
+     * Most frequent sentiment per opted-in user with an id in (after, upTo] over the entries
+     * dated in the days [from, until), computed by one aggregation that starts from the users
+     * and sums each user's daily sentiment rollups (at most seven small documents per user for a
+     * week). Entries not yet backfilled with an ownerId are not in the rollups and are counted
+     * from journal_entries instead. Only one small row per user comes back, a cursor batch at a
+     * time. Users without any sentiment in the period are left out. The caller must close the stream.
+     */
+    public Stream<WeeklySentiment> streamWeeklySentiments(LocalDate from, LocalDate until, ObjectId after,
+            ObjectId upTo, int batchSize) {
+        // same conversion Spring Data applies when it writes LocalDateTime and LocalDate fields
+        Date start = Date.from(from.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        Date end = Date.from(until.atStartOfDay(ZoneId.systemDefault()).toInstant());
+        List<Document> sumRollups = List.of(
+                new Document("$match", new Document("day", new Document("$gte", start).append("$lt", end))),
+                new Document("$project", new Document("counts", new Document("$objectToArray", "$counts"))),
+                new Document("$unwind", "$counts"),
+                new Document("$group", new Document("_id", "$counts.k")
+                        .append("count", new Document("$sum", "$counts.v"))));
+        Document recentSentiments = new Document("$match", new Document("date",
+                new Document("$gte", start).append("$lt", end))
+                .append("sentiment", new Document("$ne", null)));
+        Document countBySentiment = new Document("$group", new Document("_id", "$sentiment")
+                .append("count", new Document("$sum", 1)));
+
+        List<Bson> pipeline = List.of(
+                Aggregates.match(after == null
+                        ? Filters.and(sentimentUsers(), Filters.lte("_id", upTo))
+                        : Filters.and(sentimentUsers(), Filters.gt("_id", after), Filters.lte("_id", upTo))),
+                // raw ids of the legacy DBRefs, for entries the owner backfill has not reached yet
+                new Document("$project", new Document("email", 1).append("legacyIds", new Document("$map",
+                        new Document("input", new Document("$ifNull", List.of("$journalEntries", List.of())))
+                                .append("in", new Document("$getField", new Document("field",
+                                        new Document("$literal", "$id")).append("input", "$$this")))))),
+                new Document("$lookup", new Document("from",
+                        mongoTemplate.getCollectionName(DailySentimentRollup.class))
+                        .append("localField", "_id")
+                        .append("foreignField", "ownerId")
+                        .append("pipeline", sumRollups)
+                        .append("as", "owned")),
+                new Document("$lookup", new Document("from", mongoTemplate.getCollectionName(JournalEntry.class))
+                        .append("localField", "legacyIds")
+                        .append("foreignField", "_id")
+                        .append("pipeline", List.of(new Document("$match", new Document("ownerId", null)),
+                                recentSentiments, countBySentiment))
+                        .append("as", "legacy")),
+                new Document("$project", new Document("email", 1)
+                        .append("counts", new Document("$concatArrays", List.of("$owned", "$legacy")))),
+                new Document("$unwind", "$counts"),
+                new Document("$group", new Document("_id", new Document("user", "$_id")
+                        .append("sentiment", "$counts._id"))
+                        .append("email", new Document("$first", "$email"))
+                        .append("count", new Document("$sum", "$counts.count"))),
+                // ties go to the first sentiment by name so reruns pick the same one
+                new Document("$sort", new Document("count", -1).append("_id.sentiment", 1)),
+                new Document("$group", new Document("_id", "$_id.user")
+                        .append("email", new Document("$first", "$email"))
+                        .append("sentiment", new Document("$first", "$_id.sentiment"))));
+
+        MongoCursor<Document> cursor = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+                .aggregate(pipeline)
+                .allowDiskUse(true)
+                .batchSize(batchSize)
+                .cursor();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED), false)
+                .map(row -> new WeeklySentiment(row.getObjectId("_id"), row.getString("email"),
+                        Sentiment.valueOf(row.getString("sentiment"))))
+                .onClose(cursor::close);
+    }
+
+    private Bson sentimentUsers() {
+        return Filters.and(Filters.eq("sentimentAnalysis", true), Filters.regex("email", "^.+@.+\\..+$"));
+    }
+
+    /**
+     * Reads the user's id and the raw ids of its legacy journalEntries DBRefs straight from
+     * the collection, so none of the referenced entries are loaded.
+     */
+    public JournalOwner findJournalOwner(String userName) {
+        Document user = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+                .find(Filters.eq("userName", userName))
+                .projection(Projections.include("journalEntries"))
+                .first();
+        if (user == null) {
+            return null;
+        }
+        List<ObjectId> entryIds = new ArrayList<>();
+        List<DBRef> refs = user.getList("journalEntries", DBRef.class);
+        if (refs != null) {
+            for (DBRef ref : refs) {
+                entryIds.add((ObjectId) ref.getId());
+            }
+        }
+        return new JournalOwner(user.getObjectId("_id"), entryIds);
+    }
+
+    public void pullJournalEntryRef(ObjectId userId, ObjectId entryId) {
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+                .updateOne(Filters.eq("_id", userId), Updates.pull("journalEntries",
+                        new DBRef(mongoTemplate.getCollectionName(JournalEntry.class), entryId)));
+    }
 }
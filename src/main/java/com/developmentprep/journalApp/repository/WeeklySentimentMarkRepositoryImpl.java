@@ -0,0 +1,57 @@
+package com.developmentprep.journalApp.repository;
+
+import com.developmentprep.journalApp.entity.WeeklySentimentMark;
+import com.developmentprep.journalApp.enums.MarkStatus;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class WeeklySentimentMarkRepositoryImpl {
+
+    private final MongoTemplate mongoTemplate;
+
+    public WeeklySentimentMarkRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Claims the user for the week; throws DuplicateKeyException if someone already has.
+     */
+    public void insert(WeeklySentimentMark mark) {
+        mongoTemplate.insert(mark);
+    }
+
+    /**
+     * Moves the PENDING marks among ids to status in one write. Marks already moved on, e.g.
+     * by a node that republished them in the meantime, are left alone.
+     */
+    public void setStatus(Collection<String> ids, MarkStatus status) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Update update = new Update().set("status", status);
+        if (status == MarkStatus.SENT) {
+            update.set("sentAt", LocalDateTime.now());
+        }
+        mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(ids).and("status").is(MarkStatus.PENDING)),
+                update, WeeklySentimentMark.class);
+    }
+
+    /**
+     * The oldest marks still PENDING that were claimed before the given time.
+     */
+    public List<WeeklySentimentMark> findPendingClaimedBefore(LocalDateTime before, int limit) {
+        Query query = new Query(Criteria.where("status").is(MarkStatus.PENDING).and("claimedAt").lt(before))
+                .with(Sort.by(Sort.Direction.ASC, "claimedAt"))
+                .limit(limit);
+        return mongoTemplate.find(query, WeeklySentimentMark.class);
+    }
+}
@@ -0,0 +1,14 @@
+package com.developmentprep.journalApp.repository;
+
+import com.developmentprep.journalApp.entity.WeeklySentimentRetry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface WeeklySentimentRetryRepository extends MongoRepository<WeeklySentimentRetry, String> {
+
+    List<WeeklySentimentRetry> findByAttemptsLessThanAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+            int maxAttempts, LocalDateTime now, Pageable pageable);
+}
@@ -1,81 +1,47 @@
 package com.developmentprep.journalApp.scheduler;
 
 import com.developmentprep.journalApp.cache.AppCache;
-import com.developmentprep.journalApp.entity.JournalEntry;
-import com.developmentprep.journalApp.entity.User;
-import com.developmentprep.journalApp.enums.Sentiment;
-import com.developmentprep.journalApp.model.SentimentData;
-import com.developmentprep.journalApp.repository.UserRepositoryImpl;
-import com.developmentprep.journalApp.service.EmailService;
+import com.developmentprep.journalApp.service.WeeklySentimentPublisher;
+import com.developmentprep.journalApp.service.WeeklySentimentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-
 @Component
 @ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = false)
 public class UserScheduler {
 
     @Autowired
-    private EmailService emailService;
+    private WeeklySentimentService weeklySentimentService;
 
     @Autowired
-    private UserRepositoryImpl userRepository;
+    private WeeklySentimentPublisher weeklySentimentPublisher;
 
     @Autowired
     private AppCache appCache;
 
-    @Autowired(required = false)
-    private KafkaTemplate<String, SentimentData> kafkaTemplate;
-
+    // every node joins in; chunk leases in WeeklySentimentService keep the work disjoint
     @Scheduled(cron = "0 0 9 * * SUN")
     public void fetchUserAndSendSaMail() {
-        List<User> users = userRepository.getUsersForSA();
-        for (User user : users) {
-            List<JournalEntry> journalEntries = user.getJournalEntries();
-            List<Sentiment> sentiments = journalEntries.stream()
-                    .filter(x -> x.getDate().isAfter(LocalDateTime.now().minus(7, ChronoUnit.DAYS)))
-                    .map(x -> x.getSentiment()).collect(Collectors.toList());
-            Map<Sentiment, Integer> sentimentCounts = new HashMap<>();
-            for (Sentiment sentiment : sentiments) {
-                if (sentiment != null)
-                    sentimentCounts.put(sentiment, sentimentCounts.getOrDefault(sentiment, 0) + 1);
-            }
-            Sentiment mostFrequentSentiment = null;
-            int maxCount = 0;
-            for (Map.Entry<Sentiment, Integer> entry : sentimentCounts.entrySet()) {
-                if (entry.getValue() > maxCount) {
-                    maxCount = entry.getValue();
-                    mostFrequentSentiment = entry.getKey();
-                }
-            }
-            if (mostFrequentSentiment != null) {
-                SentimentData sentimentData = SentimentData.builder().email(user.getEmail())
-                        .sentiment("Sentiment for last 7 days " + mostFrequentSentiment).build();
-                if (kafkaTemplate != null) {
-                    try {
-                        kafkaTemplate.send("weekly_sentiments", sentimentData.getEmail(), sentimentData);
-                    } catch (Exception e) {
-                        emailService.sendMail(sentimentData.getEmail(), "Sentiment for previous week",
-                                sentimentData.getSentiment());
-                    }
-                } else {
-                    // Kafka not available, send email directly
-                    emailService.sendMail(sentimentData.getEmail(), "Sentiment for previous week",
-                            sentimentData.getSentiment());
-                }
-            }
-        }
+        weeklySentimentService.run();
+    }
+
+    // picks up a weekly run that stopped half way, e.g. because the node restarted
+    @Scheduled(cron = "0 30 * * * *")
+    public void resumeSaMail() {
+        weeklySentimentService.resumeIfIncomplete();
+    }
+
+    // re-publishes weekly sentiment records the broker did not take, or whose node stopped before
+    // it did; one node at a time
+    @Scheduled(cron = "0 0/5 * * * *")
+    public void retrySaMail() {
+        weeklySentimentService.republishStalled();
+        weeklySentimentPublisher.retryDue();
     }
 
+    // deliberately runs on every node: each one reloads its own in-memory copy of the config
     @Scheduled(cron = "0 0/10 * ? * *")
     public void clearAppCache() {
         appCache.init();
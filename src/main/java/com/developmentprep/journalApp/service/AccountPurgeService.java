@@ -0,0 +1,160 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.config.NodeIdentity;
+import com.developmentprep.journalApp.entity.AccountPurge;
+import com.developmentprep.journalApp.enums.PurgeStatus;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.repository.AccountPurgeRepository;
+import com.developmentprep.journalApp.repository.JobLeaseRepositoryImpl;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
+import com.developmentprep.journalApp.repository.SentimentRollupRepositoryImpl;
+import com.developmentprep.journalApp.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * Asynchronous account deletion: the purge is recorded in account_purges with everything
+ * needed to find the user's entries, then the user document is removed so the account is gone
+ * immediately, and the journal entries are purged in chunks on a background executor. Purges
+ * that could not be queued, failed, or stopped with their node are picked up again by a
+ * periodic sweep; purging is idempotent, so running one twice does no harm.
+ */
+@Service
+@Slf4j
+public class AccountPurgeService {
+
+    static final String SWEEP_JOB_NAME = "account-purge-sweep";
+
+    private static final EnumSet<PurgeStatus> UNFINISHED =
+            EnumSet.of(PurgeStatus.PENDING, PurgeStatus.RUNNING, PurgeStatus.FAILED);
+
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+    private final SentimentRollupRepositoryImpl sentimentRollupRepositoryImpl;
+    private final AccountPurgeRepository accountPurgeRepository;
+    private final JobLeaseRepositoryImpl jobLeaseRepositoryImpl;
+    private final NodeIdentity nodeIdentity;
+    private final ThreadPoolTaskExecutor purgeExecutor;
+
+    @Value("${journal.purge.sweep-interval-ms:60000}")
+    private long sweepIntervalMs;
+
+    // a purge untouched for this long is retried: not queued, failed, or its node went away
+    @Value("${journal.purge.retry-after-ms:600000}")
+    private long retryAfterMs;
+
+    @Value("${journal.purge.max-attempts:5}")
+    private int maxAttempts;
+
+    public AccountPurgeService(UserService userService, UserRepository userRepository,
+            JournalEntryRepositoryImpl journalEntryRepositoryImpl,
+            SentimentRollupRepositoryImpl sentimentRollupRepositoryImpl, AccountPurgeRepository accountPurgeRepository,
+            JobLeaseRepositoryImpl jobLeaseRepositoryImpl, NodeIdentity nodeIdentity,
+            @Qualifier("purgeExecutor") ThreadPoolTaskExecutor purgeExecutor) {
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.journalEntryRepositoryImpl = journalEntryRepositoryImpl;
+        this.sentimentRollupRepositoryImpl = sentimentRollupRepositoryImpl;
+        this.accountPurgeRepository = accountPurgeRepository;
+        this.jobLeaseRepositoryImpl = jobLeaseRepositoryImpl;
+        this.nodeIdentity = nodeIdentity;
+        this.purgeExecutor = purgeExecutor;
+    }
+
+    public AccountPurge deleteUserAndEntriesAsync(String username) {
+        JournalOwner owner = userService.findJournalOwner(username);
+
+        AccountPurge purge = new AccountPurge();
+        purge.setUserName(username);
+        purge.setUserId(owner.getUserId());
+        purge.setLegacyEntryIds(new ArrayList<>(owner.getLegacyEntryIds()));
+        purge.setStatus(PurgeStatus.PENDING);
+        purge.setRequestedAt(LocalDateTime.now());
+        purge.setUpdatedAt(purge.getRequestedAt());
+        AccountPurge saved = accountPurgeRepository.save(purge);
+
+        // the purge record is durable from here on, so the user can go even if the queue is full
+        userRepository.deleteByUserName(username);
+        submit(saved);
+        return saved;
+    }
+
+    public List<AccountPurge> recentPurges() {
+        return accountPurgeRepository.findTop50ByOrderByRequestedAtDesc();
+    }
+
+    /**
+     * Queues again the purges that have not finished and have not made progress for a while.
+     * One node sweeps at a time.
+     */
+    @Scheduled(initialDelayString = "${journal.purge.sweep-interval-ms:60000}",
+            fixedDelayString = "${journal.purge.sweep-interval-ms:60000}")
+    public void resumeUnfinished() {
+        if (!jobLeaseRepositoryImpl.tryAcquire(SWEEP_JOB_NAME, nodeIdentity.getId(),
+                Duration.ofMillis(sweepIntervalMs))) {
+            return;
+        }
+        List<AccountPurge> unfinished = accountPurgeRepository
+                .findTop50ByStatusInAndUpdatedAtBeforeAndAttemptsLessThanOrderByUpdatedAtAsc(UNFINISHED,
+                        LocalDateTime.now().minus(Duration.ofMillis(retryAfterMs)), maxAttempts);
+        for (AccountPurge purge : unfinished) {
+            log.info("Resuming {} purge of account {}", purge.getStatus(), purge.getUserName());
+            if (!submit(purge)) {
+                return;
+            }
+        }
+    }
+
+    private boolean submit(AccountPurge purge) {
+        try {
+            purgeExecutor.execute(() -> purgeEntries(purge));
+            return true;
+        } catch (TaskRejectedException e) {
+            log.warn("Purge queue is full, purge of {} left for the next sweep", purge.getUserName());
+            return false;
+        }
+    }
+
+    private void purgeEntries(AccountPurge purge) {
+        JournalOwner owner = new JournalOwner(purge.getUserId(), purge.getLegacyEntryIds());
+        purge.setStatus(PurgeStatus.RUNNING);
+        purge.setAttempts(purge.getAttempts() + 1);
+        purge.setError(null);
+        purge.setUpdatedAt(LocalDateTime.now());
+        accountPurgeRepository.save(purge);
+        // entries removed by earlier attempts are gone, so a retry counts on top of them
+        long deletedBefore = purge.getDeletedEntries();
+        try {
+            long deleted = deletedBefore;
+            deleted += journalEntryRepositoryImpl.deleteAllOwned(owner, UserService.PURGE_CHUNK_SIZE, total -> {
+                purge.setDeletedEntries(deletedBefore + total);
+                purge.setUpdatedAt(LocalDateTime.now());
+                accountPurgeRepository.save(purge);
+            });
+            sentimentRollupRepositoryImpl.deleteAllOwned(owner.getUserId());
+            purge.setDeletedEntries(deleted);
+            purge.setStatus(PurgeStatus.COMPLETED);
+            log.info("Purged account {} with {} journal entries", purge.getUserName(), deleted);
+        } catch (Exception e) {
+            log.error("Failed to purge journal entries of {} (attempt {})", purge.getUserName(),
+                    purge.getAttempts(), e);
+            purge.setStatus(PurgeStatus.FAILED);
+            purge.setError(e.getMessage());
+        }
+        purge.setFinishedAt(LocalDateTime.now());
+        purge.setUpdatedAt(purge.getFinishedAt());
+        accountPurgeRepository.save(purge);
+    }
+}
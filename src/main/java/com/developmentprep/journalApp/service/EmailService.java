@@ -1,6 +1,7 @@
 package com.developmentprep.journalApp.service;
 
 import com.developmentprep.journalApp.config.SendGridConfig;
+import com.developmentprep.journalApp.dto.EmailSenderStats;
 import com.sendgrid.Method;
 import com.sendgrid.Request;
 import com.sendgrid.Response;
@@ -8,18 +9,40 @@ import com.sendgrid.SendGrid;
 import com.sendgrid.helpers.mail.Mail;
 import com.sendgrid.helpers.mail.objects.Content;
 import com.sendgrid.helpers.mail.objects.Email;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Sends mail through SendGrid with the shared, pooled client from SendGridConfig. sendMailAsync
+ * runs the call on the bounded emailExecutor; when its queue is full the send is refused
+ * straight away instead of piling up, and the caller decides when to try again.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class EmailService {
 
     private final SendGridConfig sendGridConfig;
+    private final SendGrid sendGrid;
+    private final ThreadPoolTaskExecutor emailExecutor;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public EmailService(SendGridConfig sendGridConfig, SendGrid sendGrid,
+            @Qualifier("emailExecutor") ThreadPoolTaskExecutor emailExecutor) {
+        this.sendGridConfig = sendGridConfig;
+        this.sendGrid = sendGrid;
+        this.emailExecutor = emailExecutor;
+    }
 
     public void sendMail(String to, String subject, String body) {
         sendMail(null, to, subject, body);
@@ -38,25 +61,53 @@ public class EmailService {
                 mail.setReplyTo(replyToEmail);
             }
 
-            SendGrid sg = new SendGrid(sendGridConfig.getApiKey());
             Request request = new Request();
 
             request.setMethod(Method.POST);
             request.setEndpoint("mail/send");
             request.setBody(mail.build());
 
-            Response response = sg.api(request);
+            Response response = sendGrid.api(request);
 
             if (response.getStatusCode() >= 200 && response.getStatusCode() < 300) {
                 log.info("Email sent successfully to: {} (Status: {})", to, response.getStatusCode());
+                sent.incrementAndGet();
             } else {
                 log.error("Failed to send email to: {}. Status: {}, Body: {}",
                         to, response.getStatusCode(), response.getBody());
+                // thrown so the outbox retries it instead of counting it as sent
+                throw new RuntimeException("Email sending failed with status " + response.getStatusCode());
             }
 
         } catch (IOException e) {
             log.error("Failed to send email to: {}", to, e);
+            failed.incrementAndGet();
             throw new RuntimeException("Email sending failed: " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            failed.incrementAndGet();
+            throw e;
         }
     }
+
+    /**
+     * Sends the mail on emailExecutor. The future fails with a TaskRejectedException, without
+     * anything being sent, when the executor's queue is full.
+     */
+    public CompletableFuture<Void> sendMailAsync(String replyTo, String to, String subject, String body) {
+        try {
+            CompletableFuture<Void> result = CompletableFuture.runAsync(() -> sendMail(replyTo, to, subject, body),
+                    emailExecutor);
+            submitted.incrementAndGet();
+            return result;
+        } catch (TaskRejectedException e) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    public EmailSenderStats stats() {
+        return new EmailSenderStats(emailExecutor.getMaxPoolSize(), emailExecutor.getActiveCount(),
+                emailExecutor.getQueueSize(), emailExecutor.getQueueCapacity(), submitted.get(), rejected.get(),
+                sent.get(), failed.get());
+    }
 }
@@ -0,0 +1,220 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.dto.JournalMutation;
+import com.developmentprep.journalApp.dto.JournalMutationResult;
+import com.developmentprep.journalApp.entity.JournalEntry;
+import com.developmentprep.journalApp.enums.MutationStatus;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.model.SentimentRollupDelta;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applies an ordered list of journal mutations for one user and reports a result per mutation.
+ * Creates go out as a single ordered bulk insert. Updates and deletes are applied one at a time
+ * with findAndModify / findAndRemove, so each reports what it actually changed and its counter
+ * change is computed from the entry as it was, even when another request got there first.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class JournalBatchService {
+
+    private final JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+    private final UserService userService;
+    private final SentimentRollupService sentimentRollupService;
+    private final SentimentClassificationService sentimentClassificationService;
+    private final Validator validator;
+
+    public List<JournalMutationResult> apply(String username, List<JournalMutation> mutations) {
+        JournalOwner owner = userService.findJournalOwner(username);
+
+        // sentiment counter changes per mutation, applied only for the writes that went through
+        SentimentRollupDelta[] deltas = new SentimentRollupDelta[mutations.size()];
+        JournalEntry[] created = new JournalEntry[mutations.size()];
+
+        List<JournalMutationResult> results = new ArrayList<>(mutations.size());
+        List<Integer> insertIndexes = new ArrayList<>();
+        BulkOperations inserts = journalEntryRepositoryImpl.orderedBulk();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < mutations.size(); i++) {
+            JournalMutation mutation = mutations.get(i);
+            JournalMutationResult result = new JournalMutationResult(i, null,
+                    mutation.getId() != null ? mutation.getId().toHexString() : null, null);
+            results.add(result);
+
+            switch (mutation.getOp()) {
+                case CREATE -> {
+                    JournalEntry entry = new JournalEntry();
+                    entry.setTitle(mutation.getTitle());
+                    entry.setContent(mutation.getContent());
+                    entry.setSentiment(mutation.getSentiment());
+                    String error = firstViolation(validator.validate(entry));
+                    if (error != null) {
+                        invalid(result, error);
+                        continue;
+                    }
+                    entry.setId(new ObjectId());
+                    entry.setOwnerId(owner.getUserId());
+                    entry.setDate(now);
+                    entry.setUpdatedAt(now);
+                    entry.setVersion(0L);
+                    inserts.insert(entry);
+                    insertIndexes.add(i);
+                    created[i] = entry;
+                    deltas[i] = new SentimentRollupDelta().added(entry.getDate(), entry.getSentiment());
+                    result.setId(entry.getId().toHexString());
+                    result.setStatus(MutationStatus.CREATED);
+                }
+                case UPDATE -> {
+                    if (!hasId(mutation, result)) {
+                        continue;
+                    }
+                    Update update = new Update();
+                    String error = null;
+                    if (mutation.getTitle() != null && !mutation.getTitle().isEmpty()) {
+                        error = firstViolation(validator.validateValue(JournalEntry.class, "title", mutation.getTitle()));
+                        update.set("title", mutation.getTitle());
+                    }
+                    if (error == null && mutation.getContent() != null && !mutation.getContent().isEmpty()) {
+                        error = firstViolation(
+                                validator.validateValue(JournalEntry.class, "content", mutation.getContent()));
+                        update.set("content", mutation.getContent());
+                    }
+                    if (error != null) {
+                        invalid(result, error);
+                        continue;
+                    }
+                    if (mutation.getSentiment() != null) {
+                        update.set("sentiment", mutation.getSentiment());
+                    }
+                    JournalEntry previous;
+                    try {
+                        previous = journalEntryRepositoryImpl.updateOwnedReturningPrevious(mutation.getId(), owner,
+                                update);
+                    } catch (DataAccessException e) {
+                        failed(result, i, e);
+                        continue;
+                    }
+                    if (previous == null) {
+                        result.setStatus(MutationStatus.NOT_FOUND);
+                        continue;
+                    }
+                    deltas[i] = JournalEntryService.rollupDelta(previous, mutation.getSentiment());
+                    result.setStatus(MutationStatus.UPDATED);
+                }
+                case DELETE -> {
+                    if (!hasId(mutation, result)) {
+                        continue;
+                    }
+                    JournalEntry removed;
+                    try {
+                        removed = journalEntryRepositoryImpl.removeOwned(mutation.getId(), owner);
+                    } catch (DataAccessException e) {
+                        failed(result, i, e);
+                        continue;
+                    }
+                    if (removed == null) {
+                        result.setStatus(MutationStatus.NOT_FOUND);
+                        continue;
+                    }
+                    // an entry without an owner was never counted in the rollups
+                    if (removed.getOwnerId() != null) {
+                        deltas[i] = new SentimentRollupDelta().removed(removed.getDate(), removed.getSentiment());
+                    }
+                    result.setStatus(MutationStatus.DELETED);
+                }
+            }
+        }
+
+        if (!insertIndexes.isEmpty()) {
+            execute(inserts, insertIndexes, results);
+        }
+        List<ObjectId> deleted = new ArrayList<>();
+        List<ObjectId> legacyDeleted = new ArrayList<>();
+        SentimentRollupDelta applied = new SentimentRollupDelta();
+        for (JournalMutationResult result : results) {
+            if (result.getStatus() == MutationStatus.DELETED) {
+                ObjectId id = mutations.get(result.getIndex()).getId();
+                deleted.add(id);
+                if (owner.getLegacyEntryIds().contains(id)) {
+                    // not migrated yet: drop the dangling reference from the user document too
+                    legacyDeleted.add(id);
+                }
+            }
+            if (deltas[result.getIndex()] != null && result.getStatus() != MutationStatus.FAILED) {
+                applied.plus(deltas[result.getIndex()]);
+            }
+        }
+        if (!deleted.isEmpty()) {
+            journalEntryRepositoryImpl.addTombstones(deleted, owner);
+        }
+        sentimentRollupService.record(owner.getUserId(), applied);
+        for (ObjectId id : legacyDeleted) {
+            userService.removeLegacyEntryRef(owner.getUserId(), id);
+        }
+        for (JournalMutationResult result : results) {
+            if (result.getStatus() == MutationStatus.CREATED) {
+                sentimentClassificationService.classifyLater(created[result.getIndex()]);
+            }
+        }
+        return results;
+    }
+
+    private void execute(BulkOperations inserts, List<Integer> insertIndexes, List<JournalMutationResult> results) {
+        try {
+            inserts.execute();
+        } catch (BulkOperationException e) {
+            if (e.getErrors().isEmpty()) {
+                // only the write concern failed: every write applied, it just was not acknowledged as asked
+                log.warn("Journal batch of {} inserts was not acknowledged as requested", insertIndexes.size(), e);
+                return;
+            }
+            // an ordered bulk write stops at the first error: that write and everything after it did not apply
+            int failedAt = e.getErrors().get(0).getIndex();
+            log.warn("Journal batch stopped at insert {} of {}", failedAt, insertIndexes.size(), e);
+            for (int w = failedAt; w < insertIndexes.size(); w++) {
+                JournalMutationResult result = results.get(insertIndexes.get(w));
+                result.setStatus(MutationStatus.FAILED);
+                result.setError(w == failedAt ? e.getErrors().get(0).getMessage() : "Not applied");
+            }
+        }
+    }
+
+    private void failed(JournalMutationResult result, int index, DataAccessException e) {
+        log.warn("Journal batch write {} failed", index, e);
+        result.setStatus(MutationStatus.FAILED);
+        result.setError("Not applied");
+    }
+
+    private boolean hasId(JournalMutation mutation, JournalMutationResult result) {
+        if (mutation.getId() == null) {
+            invalid(result, "Id is required");
+            return false;
+        }
+        return true;
+    }
+    private void invalid(JournalMutationResult result, String error) {
+        result.setStatus(MutationStatus.INVALID);
+        result.setError(error);
+    }
+
+    private static <T> String firstViolation(Set<ConstraintViolation<T>> violations) {
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
+    }
+}
@@ -1,13 +1,22 @@
 package com.developmentprep.journalApp.service;
 
+import com.developmentprep.journalApp.dto.JournalEntryPage;
+import com.developmentprep.journalApp.dto.JournalEntryPatch;
 import com.developmentprep.journalApp.entity.JournalEntry;
-import com.developmentprep.journalApp.entity.User;
+import com.developmentprep.journalApp.enums.Sentiment;
+import com.developmentprep.journalApp.model.JournalCursor;
+import com.developmentprep.journalApp.model.JournalEntryFilter;
+import com.developmentprep.journalApp.model.JournalFieldSet;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.model.SentimentRollupDelta;
 import com.developmentprep.journalApp.repository.JournalEntryRepository;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.types.ObjectId;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -18,21 +27,35 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class JournalEntryService {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
     private final JournalEntryRepository journalEntryRepository; // here spring automatically feeds the interface's
     // implementation
 
+    private final JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+
     private final UserService userService;
 
-    @Transactional
+    private final SentimentRollupService sentimentRollupService;
+
+    private final SentimentClassificationService sentimentClassificationService;
+
     public void saveEntry(JournalEntry journalEntry, String username) {
         try {
-            User user = userService.findByUserName(username);
+            JournalOwner owner = userService.findJournalOwner(username);
 
+            // ownership lives on the entry, so creating one is a single-document insert; a client
+            // posting back an entry it read must not turn it into a versioned update
+            journalEntry.setId(null);
+            journalEntry.setVersion(null);
+            journalEntry.setOwnerId(owner.getUserId());
             journalEntry.setDate(LocalDateTime.now());
-            JournalEntry saved = journalEntryRepository.save(journalEntry);
-
-            user.getJournalEntries().add(saved);
-            userService.saveUser(user);
+            journalEntry.setUpdatedAt(journalEntry.getDate());
+            journalEntryRepository.save(journalEntry);
+            sentimentRollupService.record(owner.getUserId(),
+                    new SentimentRollupDelta().added(journalEntry.getDate(), journalEntry.getSentiment()));
+            sentimentClassificationService.classifyLater(journalEntry);
         } catch (Exception e) {
             log.error("Error ", e);
             throw new RuntimeException("An error occurred while saving the entry.", e);
@@ -40,27 +63,123 @@ public class JournalEntryService {
 
     }
 
-    public void saveEntry(JournalEntry journalEntry) {
-        journalEntryRepository.save(journalEntry);
-    }
-
     public List<JournalEntry> getAll() {
         return journalEntryRepository.findAll();
     }
 
+    public JournalEntryPage findPageForUser(String username, JournalCursor after, int size) {
+        return findPageForUser(username, after, size, null);
+    }
+
+    /**
+     * Same as findPageForUser, reading only the requested fields from Mongo (null for all).
+     */
+    public JournalEntryPage findPageForUser(String username, JournalCursor after, int size, JournalFieldSet fields) {
+        return searchPageForUser(username, null, after, size, fields);
+    }
+
+    /**
+     * Newest-first page of the user's entries matching the filter. Every filter combination
+     * is served by one of the owner-prefixed compound indexes on journal_entries.
+     */
+    public JournalEntryPage searchPageForUser(String username, JournalEntryFilter filter, JournalCursor after,
+            int size, JournalFieldSet fields) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        JournalOwner owner = userService.findJournalOwner(username);
+
+        // fetch one extra entry to know whether another page exists
+        List<JournalEntry> entries = journalEntryRepositoryImpl.findPage(owner, filter, after, pageSize + 1, fields);
+        if (entries.size() <= pageSize) {
+            return new JournalEntryPage(entries, null);
+        }
+        List<JournalEntry> page = entries.subList(0, pageSize);
+        return new JournalEntryPage(page, JournalCursor.of(page.get(pageSize - 1)).encode());
+    }
+
     public Optional<JournalEntry> findById(ObjectId id) {
         return journalEntryRepository.findById(id);
     }
 
-    @Transactional
+    public Optional<JournalEntry> findOwnedById(ObjectId id, String username) {
+        return findOwnedById(id, username, null);
+    }
+
+    public Optional<JournalEntry> findOwnedById(ObjectId id, String username, JournalFieldSet fields) {
+        JournalOwner owner = userService.findJournalOwner(username);
+        return Optional.ofNullable(journalEntryRepositoryImpl.findOwned(id, owner, fields));
+    }
+
+    /**
+     * Overwrites the non-empty title/content and non-null sentiment of an owned entry in a
+     * single conditional write. Returns empty if the user has no entry with that id.
+     */
+    public Optional<JournalEntry> updateOwnedById(ObjectId id, String username, JournalEntry newEntry) {
+        JournalOwner owner = userService.findJournalOwner(username);
+        Update update = new Update();
+        if (newEntry.getTitle() != null && !newEntry.getTitle().isEmpty()) {
+            update.set("title", newEntry.getTitle());
+        }
+        if (newEntry.getContent() != null && !newEntry.getContent().isEmpty()) {
+            update.set("content", newEntry.getContent());
+        }
+        if (newEntry.getSentiment() != null) {
+            update.set("sentiment", newEntry.getSentiment());
+        }
+        // the rollups need the entry as it was before the write: its sentiment and whether it was counted
+        JournalEntry previous = journalEntryRepositoryImpl.updateOwnedReturningPrevious(id, owner, update);
+        if (previous == null) {
+            return Optional.empty();
+        }
+        sentimentRollupService.record(owner.getUserId(), rollupDelta(previous, newEntry.getSentiment()));
+        return Optional.ofNullable(journalEntryRepositoryImpl.findOwned(id, owner, null));
+    }
+
+    /**
+     * Applies the non-null fields of the patch as one $set, provided the entry is still at the
+     * version the client read. Returns the entry's id and new version, empty if the user has no
+     * such entry, and throws OptimisticLockingFailureException if someone else changed it first.
+     */
+    public Optional<JournalEntry> patchOwnedById(ObjectId id, String username, JournalEntryPatch patch) {
+        JournalOwner owner = userService.findJournalOwner(username);
+        Update update = new Update();
+        if (patch.getTitle() != null) {
+            update.set("title", patch.getTitle());
+        }
+        if (patch.getContent() != null) {
+            update.set("content", patch.getContent());
+        }
+        if (patch.getSentiment() != null) {
+            update.set("sentiment", patch.getSentiment());
+        }
+        JournalEntry previous = journalEntryRepositoryImpl.updateOwnedIfVersion(id, owner, patch.getVersion(), update);
+        if (previous != null) {
+            sentimentRollupService.record(owner.getUserId(), rollupDelta(previous, patch.getSentiment()));
+            JournalEntry updated = new JournalEntry();
+            updated.setId(id);
+            updated.setVersion(patch.getVersion() + 1);
+            return Optional.of(updated);
+        }
+        if (journalEntryRepositoryImpl.existsOwned(id, owner)) {
+            throw new OptimisticLockingFailureException(
+                    "Journal entry " + id + " is no longer at version " + patch.getVersion());
+        }
+        return Optional.empty();
+    }
+
     public boolean deleteById(ObjectId id, String username) {
         boolean removed = false;
         try {
-            User user = userService.findByUserName(username);
-            removed = user.getJournalEntries().removeIf(x -> x.getId().equals(id));
-            if (removed) {
-                userService.saveUser(user);
-                journalEntryRepository.deleteById(id);
+            JournalOwner owner = userService.findJournalOwner(username);
+            JournalEntry deleted = journalEntryRepositoryImpl.deleteOwned(id, owner);
+            removed = deleted != null;
+            // an entry without an owner was never counted in the rollups
+            if (removed && deleted.getOwnerId() != null) {
+                sentimentRollupService.record(owner.getUserId(),
+                        new SentimentRollupDelta().removed(deleted.getDate(), deleted.getSentiment()));
+            }
+            if (removed && owner.getLegacyEntryIds().contains(id)) {
+                // not migrated yet: drop the dangling reference from the user document too
+                userService.removeLegacyEntryRef(owner.getUserId(), id);
             }
         } catch (Exception e) {
             log.error("Error deleting journal entry with id: {}", id, e);
@@ -68,5 +187,19 @@ public class JournalEntryService {
         }
         return removed;
     }
+
+    /**
+     * Counter changes of an update that set the sentiment to newSentiment (null if it left it
+     * alone) on the entry as it was before. The update stamps the owner, so a legacy entry that
+     * had none is counted from now on with the sentiment it ends up with.
+     */
+    static SentimentRollupDelta rollupDelta(JournalEntry previous, Sentiment newSentiment) {
+        if (previous.getOwnerId() == null) {
+            return new SentimentRollupDelta().added(previous.getDate(),
+                    newSentiment != null ? newSentiment : previous.getSentiment());
+        }
+        return new SentimentRollupDelta().changed(previous.getDate(), previous.getSentiment(),
+                newSentiment != null ? newSentiment : previous.getSentiment());
+    }
 }
 // controller --> service --> repository
\ No newline at end of file
@@ -0,0 +1,187 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.dto.RestoreResult;
+import com.developmentprep.journalApp.entity.JournalEntry;
+import com.developmentprep.journalApp.enums.ExportFormat;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
+import com.developmentprep.journalApp.utils.JournalBinaryCodec;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams a user's journal out of and back into Mongo without materialising it:
+ * export reads one cursor batch at a time, restore writes one bulk batch at a time.
+ */
+@Service
+@Slf4j
+public class JournalExportService {
+
+    private static final int CURSOR_BATCH_SIZE = 200;
+    private static final int RESTORE_BATCH_SIZE = 500;
+    private static final int BUFFER_SIZE = 8 * 1024;
+    // restored entries without a sentiment queued for classification; the rest wait for the backfill
+    private static final int MAX_CLASSIFY_LATER = 1000;
+
+    private final JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+    private final UserService userService;
+    private final SentimentRollupService sentimentRollupService;
+    private final SentimentClassificationService sentimentClassificationService;
+    private final Validator validator;
+    private final ObjectWriter entryWriter;
+    private final ObjectReader entryReader;
+
+    public JournalExportService(JournalEntryRepositoryImpl journalEntryRepositoryImpl, UserService userService,
+            SentimentRollupService sentimentRollupService,
+            SentimentClassificationService sentimentClassificationService, Validator validator,
+            ObjectMapper objectMapper) {
+        this.journalEntryRepositoryImpl = journalEntryRepositoryImpl;
+        this.userService = userService;
+        this.sentimentRollupService = sentimentRollupService;
+        this.sentimentClassificationService = sentimentClassificationService;
+        this.validator = validator;
+        this.entryWriter = objectMapper.writerFor(JournalEntry.class);
+        this.entryReader = objectMapper.readerFor(JournalEntry.class);
+    }
+
+    public StreamingResponseBody export(String username, ExportFormat format) {
+        // resolve the owner on the request thread; the body itself is written asynchronously
+        JournalOwner owner = userService.findJournalOwner(username);
+        return out -> {
+            try (Stream<JournalEntry> entries = journalEntryRepositoryImpl.streamOwned(owner, CURSOR_BATCH_SIZE)) {
+                if (format == ExportFormat.BINARY) {
+                    writeBinary(entries, out);
+                } else {
+                    writeNdjson(entries, out);
+                }
+            }
+        };
+    }
+
+    public RestoreResult restore(String username, ExportFormat format, InputStream in) throws IOException {
+        JournalOwner owner = userService.findJournalOwner(username);
+        RestoreResult result = new RestoreResult();
+        List<JournalEntry> batch = new ArrayList<>(RESTORE_BATCH_SIZE);
+        List<JournalEntry> unclassified = new ArrayList<>();
+
+        try {
+            if (format == ExportFormat.BINARY) {
+                DataInputStream data = new DataInputStream(
+                        new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE));
+                JournalBinaryCodec.readHeader(data);
+                JournalEntry entry;
+                while ((entry = JournalBinaryCodec.readEntry(data)) != null) {
+                    add(entry, batch, unclassified, owner, result);
+                }
+            } else {
+                try (MappingIterator<JournalEntry> entries = entryReader.readValues(in)) {
+                    while (entries.hasNextValue()) {
+                        add(entries.nextValue(), batch, unclassified, owner, result);
+                    }
+                }
+            }
+            flush(batch, unclassified, owner, result);
+        } catch (IOException | RuntimeException e) {
+            // the batches before the error were already written, so they need counting all the same
+            rebuildRollupsAfterFailure(owner, e);
+            classifyLater(unclassified);
+            throw e;
+        }
+        // restored entries may replace existing ones, so recount the user's rollups from scratch
+        sentimentRollupService.rebuildOwner(owner.getUserId());
+        // only after the recount, which would otherwise count a classification running alongside it twice
+        classifyLater(unclassified);
+        log.info("Restored journal for {}: {}", username, result);
+        return result;
+    }
+
+    private void rebuildRollupsAfterFailure(JournalOwner owner, Exception restoreError) {
+        try {
+            sentimentRollupService.rebuildOwner(owner.getUserId());
+        } catch (RuntimeException e) {
+            // keep the restore error as the one that is reported
+            log.error("Could not recount the sentiment rollups of user {} after a failed restore",
+                    owner.getUserId(), e);
+            restoreError.addSuppressed(e);
+        }
+    }
+
+    private void classifyLater(List<JournalEntry> unclassified) {
+        for (JournalEntry entry : unclassified) {
+            sentimentClassificationService.classifyLater(entry);
+        }
+    }
+
+    private void writeNdjson(Stream<JournalEntry> entries, OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        try (SequenceWriter writer = entryWriter.withRootValueSeparator("\n").writeValues(buffered)) {
+            for (JournalEntry entry : (Iterable<JournalEntry>) entries::iterator) {
+                writer.write(entry);
+            }
+        }
+    }
+
+    private void writeBinary(Stream<JournalEntry> entries, OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(gzip, BUFFER_SIZE));
+        JournalBinaryCodec.writeHeader(data);
+        for (JournalEntry entry : (Iterable<JournalEntry>) entries::iterator) {
+            JournalBinaryCodec.writeEntry(data, entry);
+        }
+        JournalBinaryCodec.writeEnd(data);
+        data.flush();
+        gzip.finish();
+    }
+
+    private void add(JournalEntry entry, List<JournalEntry> batch, List<JournalEntry> unclassified,
+            JournalOwner owner, RestoreResult result) {
+        if (!validator.validate(entry).isEmpty()) {
+            result.setInvalid(result.getInvalid() + 1);
+            return;
+        }
+        if (entry.getDate() == null) {
+            entry.setDate(LocalDateTime.now());
+        }
+        batch.add(entry);
+        if (batch.size() >= RESTORE_BATCH_SIZE) {
+            flush(batch, unclassified, owner, result);
+        }
+    }
+
+    private void flush(List<JournalEntry> batch, List<JournalEntry> unclassified, JournalOwner owner,
+            RestoreResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<JournalEntry> written = journalEntryRepositoryImpl.upsertAllOwned(batch, owner);
+        result.setFailed(result.getFailed() + batch.size() - written.size());
+        result.setRestored(result.getRestored() + written.size());
+        for (JournalEntry entry : written) {
+            if (entry.getSentiment() == null && unclassified.size() < MAX_CLASSIFY_LATER) {
+                unclassified.add(entry);
+            }
+        }
+        batch.clear();
+    }
+}
@@ -0,0 +1,86 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.dto.JournalChanges;
+import com.developmentprep.journalApp.entity.JournalEntry;
+import com.developmentprep.journalApp.entity.JournalTombstone;
+import com.developmentprep.journalApp.model.JournalChangeToken;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Incremental sync: tells a client which of its entries were written or deleted since its
+ * last change token, so it does not have to download the whole journal again.
+ *
+ * A client starts by taking a token, then downloads its journal once through the normal
+ * listing, then polls with the latest token. Once caught up, the returned token points a
+ * short overlap window back in time, so writes that were still in flight while the feed was
+ * read are picked up by the next poll.
+ */
+@Service
+@RequiredArgsConstructor
+public class JournalSyncService {
+
+    public static final int DEFAULT_LIMIT = 200;
+    public static final int MAX_LIMIT = 500;
+
+    private final JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+    private final UserService userService;
+
+    @Value("${journal.sync.overlap-ms:5000}")
+    private long overlapMs;
+
+    public String startToken() {
+        return JournalChangeToken.at(caughtUpPosition(LocalDateTime.now())).encode();
+    }
+
+    /**
+     * Up to limit changed entries and limit deleted ids after the token. Empty if the token is
+     * older than the tombstone retention, in which case deletes may have been lost and the
+     * client has to download its journal again.
+     */
+    public Optional<JournalChanges> changesSince(String username, JournalChangeToken since, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        if (since.oldest().isBefore(now.minus(JournalTombstone.RETENTION))) {
+            return Optional.empty();
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        JournalOwner owner = userService.findJournalOwner(username);
+        LocalDateTime caughtUp = caughtUpPosition(now);
+        JournalChangeToken next = JournalChangeToken.at(caughtUp);
+
+        // one extra row on each side tells whether the client should come back straight away
+        List<JournalEntry> changed = journalEntryRepositoryImpl.findChangedSince(owner,
+                since.getEntriesAfter(), since.getEntriesAfterId(), pageSize + 1);
+        boolean moreChanged = changed.size() > pageSize;
+        if (moreChanged) {
+            changed = changed.subList(0, pageSize);
+            JournalEntry last = changed.get(pageSize - 1);
+            next.setEntriesAfter(last.getUpdatedAt());
+            next.setEntriesAfterId(last.getId());
+        }
+
+        List<JournalTombstone> deleted = journalEntryRepositoryImpl.findDeletedSince(owner,
+                since.getDeletesAfter(), since.getDeletesAfterId(), pageSize + 1);
+        boolean moreDeleted = deleted.size() > pageSize;
+        if (moreDeleted) {
+            deleted = deleted.subList(0, pageSize);
+            JournalTombstone last = deleted.get(pageSize - 1);
+            next.setDeletesAfter(last.getDeletedAt());
+            next.setDeletesAfterId(last.getId());
+        }
+
+        List<String> deletedIds = deleted.stream().map(t -> t.getId().toHexString()).toList();
+        return Optional.of(new JournalChanges(changed, deletedIds, next.encode(), moreChanged || moreDeleted));
+    }
+
+    private LocalDateTime caughtUpPosition(LocalDateTime now) {
+        return now.minusNanos(overlapMs * 1_000_000);
+    }
+}
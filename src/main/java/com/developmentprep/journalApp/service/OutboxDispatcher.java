@@ -0,0 +1,174 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.entity.OutboxEmail;
+import com.developmentprep.journalApp.enums.OutboxStatus;
+import com.developmentprep.journalApp.repository.OutboxRepositoryImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the email outbox on every node: claims due emails a batch at a time, sends each
+ * batch in parallel through EmailService.sendMailAsync and writes the outcomes back in one bulk
+ * write. A failed email is retried with exponential backoff and ends up DEAD after MAX_ATTEMPTS
+ * attempts. Emails the sender refused because its queue was full are put back as they were, and
+ * the dispatcher stops claiming until the next poll.
+ */
+@Service
+@Slf4j
+public class OutboxDispatcher {
+
+    static final int MAX_ATTEMPTS = 8;
+    private static final Duration FIRST_RETRY_DELAY = Duration.ofSeconds(30);
+    private static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+
+    private final OutboxRepositoryImpl outboxRepositoryImpl;
+    private final EmailService emailService;
+
+    // what this node dispatched since it started
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+    private volatile double lastDrainPerSecond;
+
+    @Value("${journal.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${journal.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${journal.outbox.max-batches-per-poll:20}")
+    private int maxBatchesPerPoll;
+
+    @Value("${journal.outbox.lease-ms:120000}")
+    private long leaseMs;
+
+    public OutboxDispatcher(OutboxRepositoryImpl outboxRepositoryImpl, EmailService emailService) {
+        this.outboxRepositoryImpl = outboxRepositoryImpl;
+        this.emailService = emailService;
+    }
+
+    @Scheduled(fixedDelayString = "${journal.outbox.poll-ms:1000}")
+    public void dispatch() {
+        if (enabled) {
+            drain();
+        }
+    }
+
+    /**
+     * Sends due emails until none are left or maxBatchesPerPoll batches were sent, so a large
+     * backlog does not hold the scheduler thread indefinitely. Returns the number dispatched.
+     */
+    public int drain() {
+        long startedAt = System.nanoTime();
+        int dispatched = 0;
+        try {
+            for (int i = 0; i < maxBatchesPerPoll; i++) {
+                List<OutboxEmail> batch = outboxRepositoryImpl.claimDue(batchSize, Duration.ofMillis(leaseMs));
+                if (batch.isEmpty()) {
+                    break;
+                }
+                int deferred = sendBatch(batch);
+                dispatched += batch.size() - deferred;
+                if (deferred > 0 || batch.size() < batchSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            // claimed emails that were not written back are picked up again once their lease runs out
+            log.error("Outbox dispatch stopped", e);
+        }
+        if (dispatched > 0) {
+            double seconds = Math.max(System.nanoTime() - startedAt, 1) / 1e9;
+            lastDrainPerSecond = dispatched / seconds;
+            log.info("Outbox dispatched {} emails at {} per second", dispatched, Math.round(lastDrainPerSecond));
+        }
+        return dispatched;
+    }
+
+    /**
+     * Sends the batch and records the outcomes. Returns how many emails were deferred because
+     * the sender was saturated.
+     */
+    private int sendBatch(List<OutboxEmail> batch) {
+        List<CompletableFuture<Void>> sends = new ArrayList<>(batch.size());
+        for (OutboxEmail email : batch) {
+            sends.add(emailService.sendMailAsync(email.getReplyTo(), email.getTo(), email.getSubject(),
+                    email.getBody()));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int deferred = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            OutboxEmail email = batch.get(i);
+            try {
+                sends.get(i).join();
+                email.setAttempts(email.getAttempts() + 1);
+                email.setStatus(OutboxStatus.SENT);
+                email.setSentAt(now);
+                email.setLastError(null);
+                email.setExpireAt(now.plus(OutboxEmail.SENT_RETENTION));
+                sent.incrementAndGet();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof TaskRejectedException) {
+                    // never attempted: due again straight away, without using up an attempt
+                    email.setStatus(OutboxStatus.PENDING);
+                    email.setNextAttemptAt(now);
+                    deferred++;
+                } else {
+                    email.setAttempts(email.getAttempts() + 1);
+                    failed(email, e.getCause(), now);
+                }
+            }
+        }
+        outboxRepositoryImpl.saveOutcomes(batch);
+        this.deferred.addAndGet(deferred);
+        return deferred;
+    }
+
+    private void failed(OutboxEmail email, Throwable error, LocalDateTime now) {
+        email.setLastError(String.valueOf(error));
+        if (email.getAttempts() >= MAX_ATTEMPTS) {
+            log.error("Giving up on outbox email {} to {} after {} attempts", email.getId(), email.getTo(),
+                    email.getAttempts(), error);
+            email.setStatus(OutboxStatus.DEAD);
+            email.setExpireAt(now.plus(OutboxEmail.DEAD_RETENTION));
+            deadLettered.incrementAndGet();
+            return;
+        }
+        Duration delay = FIRST_RETRY_DELAY.multipliedBy(1L << (email.getAttempts() - 1));
+        email.setStatus(OutboxStatus.PENDING);
+        email.setNextAttemptAt(now.plus(delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay));
+        retried.incrementAndGet();
+    }
+
+    public long getSent() {
+        return sent.get();
+    }
+
+    public long getRetried() {
+        return retried.get();
+    }
+
+    public long getDeadLettered() {
+        return deadLettered.get();
+    }
+
+    public long getDeferred() {
+        return deferred.get();
+    }
+
+    public double getLastDrainPerSecond() {
+        return lastDrainPerSecond;
+    }
+}
@@ -0,0 +1,92 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.config.NodeIdentity;
+import com.developmentprep.journalApp.dto.EmailStatus;
+import com.developmentprep.journalApp.dto.OutboxStats;
+import com.developmentprep.journalApp.entity.OutboxEmail;
+import com.developmentprep.journalApp.enums.OutboxStatus;
+import com.developmentprep.journalApp.repository.OutboxRepositoryImpl;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Queues emails in the outbox instead of sending them inline: a single insert, so callers do
+ * not wait for SendGrid and a queued email survives a crash. OutboxDispatcher sends them.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxRepositoryImpl outboxRepositoryImpl;
+    private final OutboxDispatcher outboxDispatcher;
+    private final EmailService emailService;
+    private final NodeIdentity nodeIdentity;
+
+    /**
+     * Queues an email on behalf of a user and returns it; its id can be looked up with statusFor.
+     */
+    public OutboxEmail enqueueEmail(String requestedBy, String replyTo, String to, String subject, String body) {
+        OutboxEmail email = email(new ObjectId().toHexString(), replyTo, to, subject, body);
+        email.setRequestedBy(requestedBy);
+        outboxRepositoryImpl.add(email);
+        return email;
+    }
+
+    /**
+     * Delivery state of an email the given user queued; empty for unknown ids, other users'
+     * emails and emails already removed after their retention.
+     */
+    public Optional<EmailStatus> statusFor(String id, String username) {
+        OutboxEmail email = outboxRepositoryImpl.findRequestedBy(id, username);
+        if (email == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new EmailStatus(email.getId(), email.getStatus(), email.getAttempts(),
+                email.getCreatedAt(), email.getSentAt(), email.getLastError()));
+    }
+
+    /**
+     * Queues emails under ids chosen by the caller, skipping ids that were queued before (and
+     * are still retained). Returns the number newly queued.
+     */
+    public int enqueueEmailsOnce(List<OutboxEmail> emails) {
+        return outboxRepositoryImpl.addAll(emails);
+    }
+
+    public static OutboxEmail email(String id, String replyTo, String to, String subject, String body) {
+        OutboxEmail email = new OutboxEmail();
+        email.setId(id);
+        email.setReplyTo(replyTo);
+        email.setTo(to);
+        email.setSubject(subject);
+        email.setBody(body);
+        email.setStatus(OutboxStatus.PENDING);
+        email.setCreatedAt(LocalDateTime.now());
+        email.setNextAttemptAt(email.getCreatedAt());
+        return email;
+    }
+
+    public OutboxStats stats() {
+        OutboxEmail oldest = outboxRepositoryImpl.findOldestDue();
+        long lagMs = oldest == null ? 0
+                : Math.max(0, Duration.between(oldest.getNextAttemptAt(), LocalDateTime.now()).toMillis());
+        return new OutboxStats(
+                outboxRepositoryImpl.countByStatus(OutboxStatus.PENDING),
+                outboxRepositoryImpl.countByStatus(OutboxStatus.PROCESSING),
+                outboxRepositoryImpl.countByStatus(OutboxStatus.DEAD),
+                lagMs,
+                nodeIdentity.getId(),
+                outboxDispatcher.getSent(),
+                outboxDispatcher.getRetried(),
+                outboxDispatcher.getDeadLettered(),
+                outboxDispatcher.getDeferred(),
+                outboxDispatcher.getLastDrainPerSecond(),
+                emailService.stats());
+    }
+}
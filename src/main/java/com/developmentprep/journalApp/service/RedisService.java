@@ -1,44 +1,57 @@
 package com.developmentprep.journalApp.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import com.developmentprep.journalApp.cache.CacheCodec;
+import com.developmentprep.journalApp.cache.TypedCache;
+import com.developmentprep.journalApp.dto.RedisCacheStats;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Entry point to Redis. Cached values go through typed caches, one per key prefix, which encode
+ * values with the configured format and compression (journal.redis.cache.*); stats reports each
+ * prefix's hit rate, latency and payload size.
+ */
 @Service
-@Slf4j
-@RequiredArgsConstructor
 public class RedisService {
 
-    private final RedisTemplate redisTemplate;
-
-    public <T> T get(String key, Class<T> entityClass) {
-        try {
-            Object o = redisTemplate.opsForValue().get(key);
-            if (o == null) {
-                log.debug("Cache miss for key: {}", key);
-                return null;
-            }
-
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(o.toString(), entityClass);
-        } catch (Exception e) {
-            log.error("Failed to deserialize cached value for key: {}", key, e);
-            redisTemplate.delete(key);
-            return null;
-        }
+    private final RedisTemplate<String, byte[]> cacheRedisTemplate;
+    private final CacheCodec.Format format;
+    private final CacheCodec.Compression compression;
+    private final int compressMinBytes;
+
+    private final ConcurrentHashMap<String, TypedCache<?>> caches = new ConcurrentHashMap<>();
+
+    public RedisService(@Qualifier("cacheRedisTemplate") RedisTemplate<String, byte[]> cacheRedisTemplate,
+            @Value("${journal.redis.cache.format:smile}") String format,
+            @Value("${journal.redis.cache.compression:lz4}") String compression,
+            @Value("${journal.redis.cache.compress-min-bytes:1024}") int compressMinBytes) {
+        this.cacheRedisTemplate = cacheRedisTemplate;
+        this.format = CacheCodec.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        this.compression = CacheCodec.Compression.valueOf(compression.toUpperCase(Locale.ROOT));
+        this.compressMinBytes = compressMinBytes;
     }
 
-    public void set(String key, Object o, Long ttl) {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            String jsonValue = mapper.writeValueAsString(o);
-            redisTemplate.opsForValue().set(key, jsonValue, ttl, TimeUnit.SECONDS);
-        } catch (Exception e) {
-            log.error("Exception ", e);
+    /**
+     * The cache for values of the given type stored under keys starting with prefix. Callers
+     * keep the returned cache; asking again for the same prefix returns the same instance.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> TypedCache<T> cache(String prefix, Class<T> type) {
+        TypedCache<?> cache = caches.computeIfAbsent(prefix, p -> new TypedCache<>(p,
+                new CacheCodec<>(type, format, compression, compressMinBytes), cacheRedisTemplate));
+        if (cache.getType() != type) {
+            throw new IllegalStateException("Prefix " + prefix + " already caches " + cache.getType().getName());
         }
+        return (TypedCache<T>) cache;
+    }
+
+    public List<RedisCacheStats> stats() {
+        return caches.values().stream().map(TypedCache::stats).toList();
     }
 }
@@ -0,0 +1,48 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.cache.TypedCache;
+import com.developmentprep.journalApp.dto.SentimentAnalytics;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Journal activity across all users for the admin dashboards. Results are cached in Redis per
+ * window for a short time, so dashboards polling the same window share one aggregation.
+ */
+@Service
+public class SentimentAnalyticsService {
+
+    public static final int DEFAULT_DAYS = 30;
+    public static final int MAX_DAYS = 366;
+
+    private final JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+    private final TypedCache<SentimentAnalytics> cache;
+
+    @Value("${journal.analytics.cache-ttl-seconds:60}")
+    private long cacheTtlSeconds;
+
+    public SentimentAnalyticsService(JournalEntryRepositoryImpl journalEntryRepositoryImpl,
+            RedisService redisService) {
+        this.journalEntryRepositoryImpl = journalEntryRepositoryImpl;
+        this.cache = redisService.cache("sentiment_analytics_", SentimentAnalytics.class);
+    }
+
+    /**
+     * Activity over the days from..to (inclusive). The window must not be longer than MAX_DAYS.
+     */
+    public SentimentAnalytics analytics(LocalDate from, LocalDate to) {
+        if (from.isAfter(to) || from.plusDays(MAX_DAYS).isBefore(to.plusDays(1))) {
+            throw new IllegalArgumentException("The window must span 1 to " + MAX_DAYS + " days");
+        }
+        String window = from + "_" + to;
+        SentimentAnalytics analytics = cache.get(window);
+        if (analytics == null) {
+            analytics = journalEntryRepositoryImpl.sentimentAnalytics(from, to);
+            cache.set(window, analytics, cacheTtlSeconds);
+        }
+        return analytics;
+    }
+}
@@ -0,0 +1,128 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.entity.JobRun;
+import com.developmentprep.journalApp.entity.JournalEntry;
+import com.developmentprep.journalApp.enums.JobRunStatus;
+import com.developmentprep.journalApp.enums.Sentiment;
+import com.developmentprep.journalApp.model.SentimentRollupDelta;
+import com.developmentprep.journalApp.repository.JobRunRepository;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
+import com.developmentprep.journalApp.utils.SentimentClassifier;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills in the sentiment of entries written without one, using SentimentClassifier. New
+ * entries are classified after the request has returned, on the bounded classificationExecutor;
+ * a backfill classifies the existing ones. A sentiment chosen by the user always wins: an entry
+ * is only updated if it still has no sentiment and has not been written since it was read.
+ */
+@Service
+@Slf4j
+public class SentimentClassificationService {
+
+    static final String BACKFILL_JOB_NAME = "sentiment-classification-backfill";
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    private final JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+    private final SentimentRollupService sentimentRollupService;
+    private final JobRunRepository jobRunRepository;
+    private final ThreadPoolTaskExecutor classificationExecutor;
+    private final ThreadPoolTaskExecutor maintenanceExecutor;
+
+    public SentimentClassificationService(JournalEntryRepositoryImpl journalEntryRepositoryImpl,
+            SentimentRollupService sentimentRollupService, JobRunRepository jobRunRepository,
+            @Qualifier("classificationExecutor") ThreadPoolTaskExecutor classificationExecutor,
+            @Qualifier("maintenanceExecutor") ThreadPoolTaskExecutor maintenanceExecutor) {
+        this.journalEntryRepositoryImpl = journalEntryRepositoryImpl;
+        this.sentimentRollupService = sentimentRollupService;
+        this.jobRunRepository = jobRunRepository;
+        this.classificationExecutor = classificationExecutor;
+        this.maintenanceExecutor = maintenanceExecutor;
+    }
+
+    /**
+     * Queues a just-saved entry for classification if it has no sentiment. Never blocks: when
+     * the queue is full the entry is left for the next backfill.
+     */
+    public void classifyLater(JournalEntry entry) {
+        if (entry.getSentiment() != null) {
+            return;
+        }
+        try {
+            classificationExecutor.execute(() -> classify(entry));
+        } catch (TaskRejectedException e) {
+            log.warn("Classification queue is full, entry {} left for the backfill", entry.getId());
+        }
+    }
+
+    private void classify(JournalEntry entry) {
+        try {
+            Sentiment sentiment = SentimentClassifier.classify(entry.getTitle(), entry.getContent());
+            if (sentiment != null
+                    && journalEntryRepositoryImpl.setClassifiedSentiment(entry.getId(), entry.getVersion(), sentiment)
+                    && entry.getOwnerId() != null) {
+                sentimentRollupService.record(entry.getOwnerId(),
+                        new SentimentRollupDelta().added(entry.getDate(), sentiment));
+            }
+        } catch (Exception e) {
+            log.warn("Could not classify entry {}", entry.getId(), e);
+        }
+    }
+
+    /**
+     * Starts classifying every entry without a sentiment in the background and returns its run
+     * record. The rollups are recounted once at the end instead of per entry.
+     */
+    public JobRun backfillAsync() {
+        JobRun run = new JobRun();
+        run.setName(BACKFILL_JOB_NAME);
+        run.setStatus(JobRunStatus.RUNNING);
+        run.setStartedAt(LocalDateTime.now());
+        JobRun saved = jobRunRepository.save(run);
+        maintenanceExecutor.execute(() -> backfill(saved));
+        return saved;
+    }
+
+    void backfill(JobRun run) {
+        try {
+            ObjectId after = null;
+            List<JournalEntry> batch;
+            while (!(batch = journalEntryRepositoryImpl.findUnclassified(after, BACKFILL_BATCH_SIZE)).isEmpty()) {
+                List<JournalEntry> classified = new ArrayList<>(batch.size());
+                for (JournalEntry entry : batch) {
+                    entry.setSentiment(SentimentClassifier.classify(entry.getTitle(), entry.getContent()));
+                    if (entry.getSentiment() != null) {
+                        classified.add(entry);
+                    } else {
+                        run.setSkipped(run.getSkipped() + 1);
+                    }
+                }
+                run.setSent(run.getSent() + journalEntryRepositoryImpl.setClassifiedSentiments(classified));
+                run.setProcessed(run.getProcessed() + batch.size());
+                after = batch.get(batch.size() - 1).getId();
+            }
+            sentimentRollupService.rebuildOwner(null);
+            run.setStatus(JobRunStatus.COMPLETED);
+        } catch (Exception e) {
+            log.error("Sentiment classification backfill failed", e);
+            run.setStatus(JobRunStatus.FAILED);
+            run.setError(e.getMessage());
+        }
+        run.setFinishedAt(LocalDateTime.now());
+        run.setDurationMs(Duration.between(run.getStartedAt(), run.getFinishedAt()).toMillis());
+        run.setProcessedPerSecond(run.getDurationMs() > 0 ? run.getProcessed() * 1000.0 / run.getDurationMs() : 0);
+        jobRunRepository.save(run);
+        log.info("Sentiment classification backfill {}: {} entries, {} classified, {} without a sentiment word "
+                + "in {} ms", run.getStatus(), run.getProcessed(), run.getSent(), run.getSkipped(), run.getDurationMs());
+    }
+}
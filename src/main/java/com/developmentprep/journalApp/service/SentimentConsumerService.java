@@ -1,24 +1,52 @@
 package com.developmentprep.journalApp.service;
 
+import com.developmentprep.journalApp.entity.OutboxEmail;
 import com.developmentprep.journalApp.model.SentimentData;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns the weekly sentiment records into outbox emails a batch at a time, with one bulk insert
+ * per batch; the batch's offsets are committed once the insert has succeeded, so a crash never
+ * loses a record. Each email is queued under its (email, week) id, so a record delivered again
+ * after a rebalance or a failed batch is not mailed twice.
+ */
 @Service
+@Slf4j
 @ConditionalOnProperty(name = "spring.kafka.enabled", havingValue = "true", matchIfMissing = false)
 public class SentimentConsumerService {
 
     @Autowired
-    private EmailService emailService;
+    private OutboxService outboxService;
 
-    @KafkaListener(topics = "weekly_sentiments", groupId = "weekly-sentiment-group")
-    public void consume(SentimentData sentimentData) {
-        sendEmail(sentimentData);
+    @KafkaListener(topics = WeeklySentimentPublisher.TOPIC, groupId = "weekly-sentiment-group",
+            containerFactory = "sentimentBatchListenerFactory")
+    public void consume(List<ConsumerRecord<String, SentimentData>> records) {
+        List<OutboxEmail> emails = new ArrayList<>(records.size());
+        for (ConsumerRecord<String, SentimentData> record : records) {
+            SentimentData sentimentData = record.value();
+            emails.add(OutboxService.email(outboxId(sentimentData, record.timestamp()), null,
+                    sentimentData.getEmail(), WeeklySentimentPublisher.SUBJECT, sentimentData.getSentiment()));
+        }
+        int queued = outboxService.enqueueEmailsOnce(emails);
+        if (queued < emails.size()) {
+            log.info("Skipped {} weekly sentiment records that were already queued", emails.size() - queued);
+        }
     }
 
-    private void sendEmail(SentimentData sentimentData) {
-        emailService.sendMail(sentimentData.getEmail(), "Sentiment for previous week", sentimentData.getSentiment());
+    // records published before they carried a week are attributed to the week they were published in
+    static String outboxId(SentimentData sentimentData, long timestamp) {
+        String week = sentimentData.getWeek() != null ? sentimentData.getWeek() : WeeklySentimentService.weekOf(
+                Instant.ofEpochMilli(timestamp).atZone(ZoneId.systemDefault()).toLocalDate());
+        return OutboxEmail.weeklySentimentId(sentimentData.getEmail(), week);
     }
 }
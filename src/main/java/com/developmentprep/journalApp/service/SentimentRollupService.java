@@ -0,0 +1,123 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.dto.MoodSummary;
+import com.developmentprep.journalApp.entity.DailySentimentRollup;
+import com.developmentprep.journalApp.entity.JobRun;
+import com.developmentprep.journalApp.enums.JobRunStatus;
+import com.developmentprep.journalApp.enums.Sentiment;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.model.SentimentRollupDelta;
+import com.developmentprep.journalApp.repository.JobRunRepository;
+import com.developmentprep.journalApp.repository.SentimentRollupRepositoryImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-user, per-day sentiment counters in daily_sentiment_rollups. Entry writes report their
+ * changes here as they happen; mood queries read one small document per day instead of the
+ * entries. The counters are derived data: if an update is lost they drift, and a rebuild
+ * recomputes them from journal_entries.
+ */
+@Service
+@Slf4j
+public class SentimentRollupService {
+
+    public static final int MAX_DAYS = 366;
+    static final String REBUILD_JOB_NAME = "sentiment-rollup-rebuild";
+
+    private final SentimentRollupRepositoryImpl sentimentRollupRepositoryImpl;
+    private final UserService userService;
+    private final JobRunRepository jobRunRepository;
+    private final ThreadPoolTaskExecutor maintenanceExecutor;
+
+    public SentimentRollupService(SentimentRollupRepositoryImpl sentimentRollupRepositoryImpl, UserService userService,
+            JobRunRepository jobRunRepository, @Qualifier("maintenanceExecutor") ThreadPoolTaskExecutor maintenanceExecutor) {
+        this.sentimentRollupRepositoryImpl = sentimentRollupRepositoryImpl;
+        this.userService = userService;
+        this.jobRunRepository = jobRunRepository;
+        this.maintenanceExecutor = maintenanceExecutor;
+    }
+
+    /**
+     * Applies the counter changes of an entry write that has already happened. A failure is
+     * logged rather than thrown, since the entry itself was written.
+     */
+    public void record(ObjectId ownerId, SentimentRollupDelta delta) {
+        try {
+            sentimentRollupRepositoryImpl.apply(ownerId, delta);
+        } catch (Exception e) {
+            log.warn("Could not update sentiment rollups of user {}; rebuild them to repair", ownerId, e);
+        }
+    }
+
+    /**
+     * Sentiment counts of the user's entries over the last days days, today included.
+     */
+    public MoodSummary summary(String username, int days) {
+        JournalOwner owner = userService.findJournalOwner(username);
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(Math.max(1, Math.min(days, MAX_DAYS)) - 1);
+        List<DailySentimentRollup> daily = sentimentRollupRepositoryImpl.findRange(owner.getUserId(), from, to);
+
+        Map<Sentiment, Long> counts = new EnumMap<>(Sentiment.class);
+        for (DailySentimentRollup day : daily) {
+            day.getCounts().forEach((sentiment, count) -> counts.merge(sentiment, count, Long::sum));
+        }
+        Sentiment dominant = null;
+        long max = 0;
+        for (Map.Entry<Sentiment, Long> entry : counts.entrySet()) {
+            if (entry.getValue() > max) {
+                max = entry.getValue();
+                dominant = entry.getKey();
+            }
+        }
+        return new MoodSummary(from, to, counts, dominant, daily);
+    }
+
+    /**
+     * Recomputes the counters of one owner, or of everyone when ownerId is null, in the calling thread.
+     */
+    public long rebuildOwner(ObjectId ownerId) {
+        return sentimentRollupRepositoryImpl.rebuild(ownerId);
+    }
+
+    /**
+     * Starts a rebuild of everyone's counters in the background and returns its run record.
+     */
+    public JobRun rebuildAllAsync() {
+        JobRun run = new JobRun();
+        run.setName(REBUILD_JOB_NAME);
+        run.setStatus(JobRunStatus.RUNNING);
+        run.setStartedAt(LocalDateTime.now());
+        JobRun saved = jobRunRepository.save(run);
+        maintenanceExecutor.execute(() -> rebuildAll(saved));
+        return saved;
+    }
+
+    private void rebuildAll(JobRun run) {
+        try {
+            run.setProcessed(sentimentRollupRepositoryImpl.rebuild(null));
+            run.setStatus(JobRunStatus.COMPLETED);
+        } catch (Exception e) {
+            log.error("Sentiment rollup rebuild failed", e);
+            run.setStatus(JobRunStatus.FAILED);
+            run.setError(e.getMessage());
+        }
+        run.setFinishedAt(LocalDateTime.now());
+        run.setDurationMs(Duration.between(run.getStartedAt(), run.getFinishedAt()).toMillis());
+        run.setProcessedPerSecond(run.getDurationMs() > 0 ? run.getProcessed() * 1000.0 / run.getDurationMs() : 0);
+        jobRunRepository.save(run);
+        log.info("Sentiment rollup rebuild {}: {} daily counters in {} ms", run.getStatus(), run.getProcessed(),
+                run.getDurationMs());
+    }
+}
@@ -1,10 +1,12 @@
 package com.developmentprep.journalApp.service;
 
 import com.developmentprep.journalApp.dto.UserDTO;
-import com.developmentprep.journalApp.entity.JournalEntry;
 import com.developmentprep.journalApp.entity.User;
-import com.developmentprep.journalApp.repository.JournalEntryRepository;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
 import com.developmentprep.journalApp.repository.UserRepository;
+import com.developmentprep.journalApp.repository.SentimentRollupRepositoryImpl;
+import com.developmentprep.journalApp.repository.UserRepositoryImpl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.types.ObjectId;
@@ -20,9 +22,14 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class UserService {
 
+    public static final int PURGE_CHUNK_SIZE = 1000;
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final JournalEntryRepository journalEntryRepository;
+    private final JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+    private final UserRepositoryImpl userRepositoryImpl;
+
+    private final SentimentRollupRepositoryImpl sentimentRollupRepositoryImpl;
 
     public boolean saveNewUser(User user) {
         try {
@@ -83,13 +90,26 @@ public class UserService {
         return user;
     }
 
+    public JournalOwner findJournalOwner(String username) {
+        JournalOwner owner = userRepositoryImpl.findJournalOwner(username);
+        if (owner == null) {
+            throw new org.springframework.security.core.userdetails.UsernameNotFoundException(
+                    "User not found: " + username);
+        }
+        return owner;
+    }
+
+    public void removeLegacyEntryRef(ObjectId userId, ObjectId entryId) {
+        userRepositoryImpl.pullJournalEntryRef(userId, entryId);
+    }
+
     public void deleteUserAndEntries(String username) {
-        User user = findByUserName(username);
+        JournalOwner owner = findJournalOwner(username);
 
         // Delete all user's journal entries first
-        for (JournalEntry entry : user.getJournalEntries()) {
-            journalEntryRepository.deleteById(entry.getId());
-        }
+        journalEntryRepositoryImpl.deleteAllOwned(owner, PURGE_CHUNK_SIZE, deleted -> {
+        });
+        sentimentRollupRepositoryImpl.deleteAllOwned(owner.getUserId());
 
         // Then delete user
         userRepository.deleteByUserName(username);
@@ -2,44 +2,350 @@ package com.developmentprep.journalApp.service;
 
 import com.developmentprep.journalApp.api.response.WeatherResponse;
 import com.developmentprep.journalApp.cache.AppCache;
+import com.developmentprep.journalApp.cache.CountMinSketch;
+import com.developmentprep.journalApp.cache.LocalCache;
+import com.developmentprep.journalApp.cache.TypedCache;
 import com.developmentprep.journalApp.constants.Placeholders;
-import lombok.RequiredArgsConstructor;
+import com.developmentprep.journalApp.dto.WeatherCacheStats;
+import com.developmentprep.journalApp.model.CachedWeather;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Current weather per city, cached in two tiers: a small in-process cache (L1) in front of
+ * Redis (L2), shared by all nodes. Concurrent misses for a city on one node share a single
+ * Redis lookup and, if that misses too, a single weatherstack call.
+ *
+ * Cached weather older than the soft TTL is still served, and refreshed in the background;
+ * only weather older than the hard TTL (the Redis TTL) makes a request wait for weatherstack.
+ * The most requested cities, ranked by a CountMinSketch, are refreshed before they go stale.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class WeatherService {
+    private static final String KEY_PREFIX = "weather_of_";
+    private static final int SKETCH_WIDTH = 4096;
+
     @Value("${weather.api.key}")
     private String apiKey;
 
+    @Value("${journal.weather.soft-ttl-seconds:240}")
+    private long softTtlSeconds;
+
+    @Value("${journal.weather.hard-ttl-seconds:300}")
+    private long hardTtlSeconds;
+
+    @Value("${journal.weather.refresh.enabled:true}")
+    private boolean refreshEnabled;
+
+    @Value("${journal.weather.refresh.interval-ms:30000}")
+    private long refreshIntervalMs;
+
+    @Value("${journal.weather.refresh.top-n:20}")
+    private int refreshTopN;
+
+    @Value("${journal.weather.refresh.min-requests:2}")
+    private int refreshMinRequests;
+
     private final RestTemplate restTemplate;
     private final AppCache appCache;
-    private final RedisService redisService;
+    private final TypedCache<CachedWeather> redisCache;
+    private final LocalCache<CachedWeather> localCache;
+    private final ThreadPoolTaskExecutor weatherExecutor;
+    private final ThreadPoolTaskExecutor weatherRefreshExecutor;
+
+    private final CountMinSketch requests = new CountMinSketch(SKETCH_WIDTH);
+    // cities with a refresh queued or running on this node
+    private final ConcurrentHashMap<String, Boolean> refreshing = new ConcurrentHashMap<>();
+
+    private final AtomicLong redisHits = new AtomicLong();
+    private final AtomicLong upstreamCalls = new AtomicLong();
+    private final AtomicLong staleServed = new AtomicLong();
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong refreshesRejected = new AtomicLong();
+    private final AtomicLong overBudget = new AtomicLong();
+
+    public WeatherService(RestTemplate restTemplate, AppCache appCache, RedisService redisService,
+            @Qualifier("weatherExecutor") ThreadPoolTaskExecutor weatherExecutor,
+            @Qualifier("weatherRefreshExecutor") ThreadPoolTaskExecutor weatherRefreshExecutor,
+            @Value("${journal.weather.local-cache.max-size:1000}") int localMaxSize,
+            @Value("${journal.weather.local-cache.ttl-seconds:60}") long localTtlSeconds) {
+        this.restTemplate = restTemplate;
+        this.appCache = appCache;
+        this.redisCache = redisService.cache(KEY_PREFIX, CachedWeather.class);
+        this.localCache = new LocalCache<>(localMaxSize, Duration.ofSeconds(localTtlSeconds));
+        this.weatherExecutor = weatherExecutor;
+        this.weatherRefreshExecutor = weatherRefreshExecutor;
+    }
+
+    /**
+     * The city's weather, or null if it is not available within budgetMs. Cached weather is
+     * returned straight away; otherwise the lookup runs on weatherExecutor and, when it takes
+     * longer than the budget, goes on to fill the cache for the next request.
+     */
+    public CompletableFuture<WeatherResponse> getWeatherWithin(String city, long budgetMs) {
+        CachedWeather cached = localCache.getIfPresent(city);
+        if (usable(cached)) {
+            // answered here; anything else may reach weatherstack, so it runs on weatherExecutor
+            requests.increment(city);
+            return CompletableFuture.completedFuture(served(city, cached));
+        }
+        CompletableFuture<WeatherResponse> lookup;
+        try {
+            lookup = CompletableFuture.supplyAsync(() -> getWeather(city), weatherExecutor);
+        } catch (TaskRejectedException e) {
+            overBudget.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+        // a copy, so the timeout completes the caller's future and not the lookup itself
+        return lookup.copy()
+                .completeOnTimeout(null, budgetMs, TimeUnit.MILLISECONDS)
+                .whenComplete((weather, e) -> {
+                    if (!lookup.isDone()) {
+                        overBudget.incrementAndGet();
+                    }
+                })
+                .exceptionally(e -> null);
+    }
+
+    /**
+     * Weather for several cities at once, in the order asked, with null for cities whose weather
+     * is not available within budgetMs. Cities missing from the local cache are read from Redis
+     * with one MGET; cities missing there too are fetched from weatherstack in parallel on
+     * weatherExecutor and written back to Redis in one pipelined batch, so the lookup takes
+     * about as long as its slowest city.
+     */
+    public CompletableFuture<Map<String, WeatherResponse>> getWeatherForAll(List<String> cities, long budgetMs) {
+        Map<String, CompletableFuture<CachedWeather>> lookups = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String city : new LinkedHashSet<>(cities)) {
+            requests.increment(city);
+            CachedWeather cached = localCache.getIfPresent(city);
+            if (usable(cached)) {
+                lookups.put(city, CompletableFuture.completedFuture(cached));
+            } else {
+                lookups.put(city, new CompletableFuture<>());
+                misses.add(city);
+            }
+        }
+        if (!misses.isEmpty()) {
+            loadAll(misses, lookups);
+        }
+        return CompletableFuture.allOf(lookups.values().toArray(new CompletableFuture[0]))
+                .completeOnTimeout(null, budgetMs, TimeUnit.MILLISECONDS)
+                .handle((done, e) -> {
+                    Map<String, WeatherResponse> weather = new LinkedHashMap<>();
+                    lookups.forEach((city, lookup) -> {
+                        CachedWeather cached = lookup.getNow(null);
+                        if (!lookup.isDone()) {
+                            overBudget.incrementAndGet();
+                        } else if (cached != null && ageMillis(cached) >= softTtlSeconds * 1000) {
+                            staleServed.incrementAndGet();
+                            refreshLater(city, softTtlSeconds * 1000);
+                        }
+                        weather.put(city, cached == null ? null : cached.getWeather());
+                    });
+                    return weather;
+                });
+    }
 
     public WeatherResponse getWeather(String city) {
-        WeatherResponse weatherResponse = redisService.get("weather_of_" + city, WeatherResponse.class);
-        if (weatherResponse != null) {
-            return weatherResponse;
+        requests.increment(city);
+        CachedWeather cached = localCache.get(city, this::load);
+        if (cached != null && ageMillis(cached) >= hardTtlSeconds * 1000) {
+            // held locally past the hard TTL; Redis has dropped it by now
+            localCache.invalidate(city);
+            cached = localCache.get(city, this::fetch);
         }
+        return cached == null ? null : served(city, cached);
+    }
+
+    /**
+     * Refreshes the most requested cities that would go stale before the next run.
+     */
+    @Scheduled(fixedDelayString = "${journal.weather.refresh.interval-ms:30000}")
+    public void refreshHotCities() {
+        if (!refreshEnabled) {
+            return;
+        }
+        long maxAgeMillis = Math.max(0, softTtlSeconds * 1000 - refreshIntervalMs);
+        for (String city : hotCities()) {
+            refreshLater(city, maxAgeMillis);
+        }
+    }
+
+    /**
+     * The refreshTopN cities requested most often lately, most requested first, leaving out
+     * cities requested fewer than refreshMinRequests times. Candidates are the cities in the
+     * local cache, which holds what requests loaded within its TTL; refreshes do not extend it.
+     */
+    public List<String> hotCities() {
+        return localCache.keys().stream()
+                .filter(city -> requests.estimate(city) >= refreshMinRequests)
+                .sorted(Comparator.comparingInt(requests::estimate).reversed())
+                .limit(refreshTopN)
+                .toList();
+    }
+
+    public WeatherCacheStats stats() {
+        return new WeatherCacheStats(localCache.size(), localCache.getMaxSize(), localCache.getHits(),
+                localCache.getMisses(), localCache.getCoalesced(), localCache.getEvictions(), redisHits.get(),
+                upstreamCalls.get(), staleServed.get(), refreshes.get(), refreshesRejected.get(), overBudget.get(),
+                hotCities());
+    }
 
+    /**
+     * Completes the lookups of the given cities: one MGET for all of them, then one
+     * weatherstack call per city Redis did not have, all at the same time. A lookup that cannot
+     * be run completes with null.
+     */
+    private void loadAll(List<String> cities, Map<String, CompletableFuture<CachedWeather>> lookups) {
+        try {
+            CompletableFuture.supplyAsync(() -> redisCache.getAll(cities), weatherExecutor)
+                    .whenComplete((found, e) -> {
+                        Map<String, CachedWeather> fetched = new ConcurrentHashMap<>();
+                        List<CompletableFuture<CachedWeather>> fetches = new ArrayList<>();
+                        for (String city : cities) {
+                            CachedWeather cached = found == null ? null : found.get(city);
+                            if (usable(cached)) {
+                                redisHits.incrementAndGet();
+                                localCache.put(city, cached);
+                                lookups.get(city).complete(cached);
+                            } else {
+                                CompletableFuture<CachedWeather> fetch = fetchLater(city, fetched);
+                                fetch.whenComplete((weather, error) -> lookups.get(city).complete(weather));
+                                fetches.add(fetch);
+                            }
+                        }
+                        CompletableFuture.allOf(fetches.toArray(new CompletableFuture[0]))
+                                .whenComplete((done, error) -> redisCache.setAll(fetched, hardTtlSeconds));
+                    });
+        } catch (TaskRejectedException e) {
+            lookups.values().forEach(lookup -> lookup.complete(null));
+        }
+    }
+
+    /**
+     * Fetches the city from weatherstack on weatherExecutor, sharing a fetch already running for
+     * it, and records what this call fetched itself in fetched for the batched write-back.
+     */
+    private CompletableFuture<CachedWeather> fetchLater(String city, Map<String, CachedWeather> fetched) {
+        try {
+            return CompletableFuture.supplyAsync(() -> localCache.get(city, c -> {
+                CachedWeather weather = fetchUpstream(c);
+                if (weather != null) {
+                    fetched.put(c, weather);
+                }
+                return weather;
+            }), weatherExecutor);
+        } catch (TaskRejectedException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * The cached weather, queueing a refresh when it is past the soft TTL.
+     */
+    private WeatherResponse served(String city, CachedWeather cached) {
+        if (ageMillis(cached) >= softTtlSeconds * 1000) {
+            staleServed.incrementAndGet();
+            refreshLater(city, softTtlSeconds * 1000);
+        }
+        return cached.getWeather();
+    }
+
+    private boolean usable(CachedWeather cached) {
+        return cached != null && cached.getWeather() != null && ageMillis(cached) < hardTtlSeconds * 1000;
+    }
+
+    private CachedWeather load(String city) {
+        CachedWeather cached = redisCache.get(city);
+        if (cached != null && cached.getWeather() != null) {
+            redisHits.incrementAndGet();
+            return cached;
+        }
+        return fetch(city);
+    }
+
+    /**
+     * Queues a refresh of the city unless one is already queued or running here.
+     */
+    private void refreshLater(String city, long maxAgeMillis) {
+        if (refreshing.putIfAbsent(city, Boolean.TRUE) != null) {
+            return;
+        }
+        try {
+            weatherRefreshExecutor.execute(() -> {
+                try {
+                    refresh(city, maxAgeMillis);
+                } finally {
+                    refreshing.remove(city);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // a later request or run tries again
+            refreshing.remove(city);
+            refreshesRejected.incrementAndGet();
+        }
+    }
+
+    /**
+     * Makes sure the cached weather is at most maxAgeMillis old, taking it from Redis when
+     * another node has refreshed it already. The local copy is replaced only if the city is still
+     * cached here, without extending its TTL, so a city nobody asks for drops out of the local
+     * cache and stops being refreshed.
+     */
+    private void refresh(String city, long maxAgeMillis) {
+        CachedWeather cached = redisCache.get(city);
+        if (cached == null || cached.getWeather() == null || ageMillis(cached) >= maxAgeMillis) {
+            refreshes.incrementAndGet();
+            cached = fetch(city);
+        }
+        if (cached != null) {
+            localCache.replace(city, cached);
+        }
+    }
+
+    private CachedWeather fetch(String city) {
+        CachedWeather cached = fetchUpstream(city);
+        if (cached != null) {
+            redisCache.set(city, cached, hardTtlSeconds);
+        }
+        return cached;
+    }
+
+    private CachedWeather fetchUpstream(String city) {
         try {
             String finalAPI = appCache.appCache.get(AppCache.keys.WEATHER_API.toString())
                     .replace(Placeholders.CITY, city)
                     .replace(Placeholders.API_KEY, apiKey);
 
+            upstreamCalls.incrementAndGet();
             ResponseEntity<WeatherResponse> response = restTemplate.exchange(finalAPI, HttpMethod.GET, null,
                     WeatherResponse.class);
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                WeatherResponse body = response.getBody();
-                redisService.set("weather_of_" + city, body, 300l);
-                return body;
+                return new CachedWeather(response.getBody(), System.currentTimeMillis());
             }
 
             log.warn("Weather API returned non-successful status: {}", response.getStatusCode());
@@ -49,4 +355,8 @@ public class WeatherService {
             return null;
         }
     }
+
+    private static long ageMillis(CachedWeather cached) {
+        return System.currentTimeMillis() - cached.getFetchedAt();
+    }
 }
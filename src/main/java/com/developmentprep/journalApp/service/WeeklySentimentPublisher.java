@@ -0,0 +1,161 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.config.NodeIdentity;
+import com.developmentprep.journalApp.entity.OutboxEmail;
+import com.developmentprep.journalApp.entity.WeeklySentimentRetry;
+import com.developmentprep.journalApp.model.SentimentData;
+import com.developmentprep.journalApp.repository.JobLeaseRepositoryImpl;
+import com.developmentprep.journalApp.repository.WeeklySentimentRetryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Publishes weekly sentiment records to Kafka without waiting for each one: sends complete
+ * through their futures, and at most max-in-flight of them are unacknowledged at a time, so the
+ * producer can batch while its buffer stays bounded. Records that could not be published are
+ * parked in weekly_sentiment_retries and sent again later by retryDue.
+ */
+@Service
+@Slf4j
+public class WeeklySentimentPublisher {
+
+    static final String TOPIC = "weekly_sentiments";
+    static final String SUBJECT = "Sentiment for previous week";
+    static final int MAX_ATTEMPTS = 5;
+    private static final int RETRY_BATCH_SIZE = 500;
+    private static final Duration FIRST_RETRY_DELAY = Duration.ofMinutes(5);
+    private static final Duration RETRY_LEASE = Duration.ofMinutes(10);
+
+    private final ObjectProvider<KafkaTemplate<String, SentimentData>> kafkaTemplate;
+    private final WeeklySentimentRetryRepository weeklySentimentRetryRepository;
+    private final JobLeaseRepositoryImpl jobLeaseRepositoryImpl;
+    private final OutboxService outboxService;
+    private final String nodeId;
+    private final Semaphore inFlight;
+
+    public WeeklySentimentPublisher(ObjectProvider<KafkaTemplate<String, SentimentData>> kafkaTemplate,
+            WeeklySentimentRetryRepository weeklySentimentRetryRepository,
+            JobLeaseRepositoryImpl jobLeaseRepositoryImpl, OutboxService outboxService, NodeIdentity nodeIdentity,
+            @Value("${journal.weekly-sentiment.kafka.max-in-flight:1000}") int maxInFlight) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.weeklySentimentRetryRepository = weeklySentimentRetryRepository;
+        this.jobLeaseRepositoryImpl = jobLeaseRepositoryImpl;
+        this.outboxService = outboxService;
+        this.nodeId = nodeIdentity.getId();
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Starts publishing the record; the future completes once the broker acknowledged it, or
+     * exceptionally if it could not be published. Blocks only while max-in-flight sends are
+     * outstanding. Without Kafka the record goes straight into the email outbox.
+     */
+    public CompletableFuture<Void> publish(SentimentData data) {
+        KafkaTemplate<String, SentimentData> kafka = kafkaTemplate.getIfAvailable();
+        if (kafka == null) {
+            try {
+                outboxService.enqueueEmailsOnce(List.of(OutboxService.email(
+                        OutboxEmail.weeklySentimentId(data.getEmail(), data.getWeek()), null, data.getEmail(),
+                        SUBJECT, data.getSentiment())));
+                return CompletableFuture.completedFuture(null);
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            // the callback runs on the producer's I/O thread, so it only hands the permit back
+            return kafka.send(TOPIC, data.getEmail(), data)
+                    .whenComplete((result, error) -> inFlight.release())
+                    .thenApply(result -> null);
+        } catch (Exception e) {
+            // e.g. the producer buffer stayed full for max.block.ms
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Parks a record whose publish failed, to be sent again by retryDue.
+     */
+    public void retryLater(String markId, ObjectId userId, SentimentData data, Throwable error) {
+        WeeklySentimentRetry retry = new WeeklySentimentRetry();
+        retry.setId(markId);
+        retry.setUserId(userId);
+        retry.setEmail(data.getEmail());
+        retry.setSentiment(data.getSentiment());
+        retry.setWeek(data.getWeek());
+        retry.setCreatedAt(LocalDateTime.now());
+        retry.setNextAttemptAt(retry.getCreatedAt().plus(FIRST_RETRY_DELAY));
+        retry.setLastError(cause(error).toString());
+        weeklySentimentRetryRepository.save(retry);
+    }
+
+    /**
+     * Publishes the parked records that are due again, on one node at a time. Each failure
+     * doubles the record's delay, up to MAX_ATTEMPTS attempts. Returns the number published.
+     */
+    public int retryDue() {
+        String lease = WeeklySentimentService.JOB_NAME + ":retry";
+        if (!jobLeaseRepositoryImpl.tryAcquire(lease, nodeId, RETRY_LEASE)) {
+            return 0;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<WeeklySentimentRetry> due = weeklySentimentRetryRepository
+                    .findByAttemptsLessThanAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(MAX_ATTEMPTS, now,
+                            PageRequest.of(0, RETRY_BATCH_SIZE));
+            List<CompletableFuture<Void>> sends = new ArrayList<>(due.size());
+            for (WeeklySentimentRetry retry : due) {
+                sends.add(publish(SentimentData.builder().email(retry.getEmail())
+                        .sentiment(retry.getSentiment()).week(retry.getWeek()).build()));
+            }
+            int published = 0;
+            for (int i = 0; i < due.size(); i++) {
+                WeeklySentimentRetry retry = due.get(i);
+                try {
+                    sends.get(i).join();
+                    weeklySentimentRetryRepository.deleteById(retry.getId());
+                    published++;
+                } catch (Exception e) {
+                    retry.setAttempts(retry.getAttempts() + 1);
+                    retry.setNextAttemptAt(now.plus(FIRST_RETRY_DELAY.multipliedBy(1L << retry.getAttempts())));
+                    retry.setLastError(cause(e).toString());
+                    weeklySentimentRetryRepository.save(retry);
+                    if (retry.getAttempts() >= MAX_ATTEMPTS) {
+                        log.error("Giving up on weekly sentiment for user {} after {} attempts", retry.getUserId(),
+                                retry.getAttempts(), cause(e));
+                    }
+                }
+            }
+            if (!due.isEmpty()) {
+                log.info("Weekly sentiment retries: {} of {} published", published, due.size());
+            }
+            return published;
+        } finally {
+            jobLeaseRepositoryImpl.release(lease, nodeId);
+        }
+    }
+
+    private static Throwable cause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,381 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.config.NodeIdentity;
+import com.developmentprep.journalApp.entity.JobCheckpoint;
+import com.developmentprep.journalApp.entity.JobChunk;
+import com.developmentprep.journalApp.entity.JobRun;
+import com.developmentprep.journalApp.entity.WeeklySentimentMark;
+import com.developmentprep.journalApp.enums.JobRunStatus;
+import com.developmentprep.journalApp.enums.MarkStatus;
+import com.developmentprep.journalApp.model.SentimentData;
+import com.developmentprep.journalApp.model.WeeklySentiment;
+import com.developmentprep.journalApp.repository.JobCheckpointRepository;
+import com.developmentprep.journalApp.repository.JobChunkRepositoryImpl;
+import com.developmentprep.journalApp.repository.JobLeaseRepositoryImpl;
+import com.developmentprep.journalApp.repository.JobRunRepository;
+import com.developmentprep.journalApp.repository.UserRepositoryImpl;
+import com.developmentprep.journalApp.repository.WeeklySentimentMarkRepositoryImpl;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Weekly sentiment mails as a partitioned, resumable job that any number of nodes can work on
+ * at once. One node at a time, holding the planning lease, cuts the opted-in users into id-range
+ * chunks stored in job_chunks. Every node then claims chunks one by one with a lease and works
+ * on them with its bounded pool, so adding nodes adds throughput. A chunk left behind by a node
+ * that died is claimed again once its lease runs out, and users are never mailed twice: each one
+ * is claimed with a per-week marker before sending. A marker stays PENDING until the broker
+ * acknowledged the record, so records of a node that stopped in between are published again.
+ */
+@Service
+@Slf4j
+public class WeeklySentimentService {
+
+    static final String JOB_NAME = "weekly-sentiment";
+    private static final int CURSOR_BATCH_SIZE = 500;
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+    private static final Duration PLAN_LEASE = Duration.ofMinutes(5);
+    private static final long PLAN_POLL_MS = 1000;
+    private static final int STALLED_BATCH_SIZE = 500;
+
+    private final UserRepositoryImpl userRepositoryImpl;
+    private final JobCheckpointRepository jobCheckpointRepository;
+    private final JobChunkRepositoryImpl jobChunkRepositoryImpl;
+    private final JobLeaseRepositoryImpl jobLeaseRepositoryImpl;
+    private final JobRunRepository jobRunRepository;
+    private final WeeklySentimentMarkRepositoryImpl weeklySentimentMarkRepositoryImpl;
+    private final WeeklySentimentPublisher weeklySentimentPublisher;
+    private final ThreadPoolTaskExecutor weeklySentimentExecutor;
+    private final String nodeId;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${journal.weekly-sentiment.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${journal.weekly-sentiment.chunk-lease-ms:600000}")
+    private long chunkLeaseMs;
+
+    public WeeklySentimentService(UserRepositoryImpl userRepositoryImpl,
+            JobCheckpointRepository jobCheckpointRepository, JobChunkRepositoryImpl jobChunkRepositoryImpl,
+            JobLeaseRepositoryImpl jobLeaseRepositoryImpl, JobRunRepository jobRunRepository,
+            WeeklySentimentMarkRepositoryImpl weeklySentimentMarkRepositoryImpl,
+            WeeklySentimentPublisher weeklySentimentPublisher,
+            @Qualifier("weeklySentimentExecutor") ThreadPoolTaskExecutor weeklySentimentExecutor,
+            NodeIdentity nodeIdentity) {
+        this.userRepositoryImpl = userRepositoryImpl;
+        this.jobCheckpointRepository = jobCheckpointRepository;
+        this.jobChunkRepositoryImpl = jobChunkRepositoryImpl;
+        this.jobLeaseRepositoryImpl = jobLeaseRepositoryImpl;
+        this.jobRunRepository = jobRunRepository;
+        this.weeklySentimentMarkRepositoryImpl = weeklySentimentMarkRepositoryImpl;
+        this.weeklySentimentPublisher = weeklySentimentPublisher;
+        this.weeklySentimentExecutor = weeklySentimentExecutor;
+        this.nodeId = nodeIdentity.getId();
+    }
+
+    /**
+     * Takes part in this week's job: plans it if nobody has, then works on chunks until none
+     * are left to claim. Returns null without doing anything when the week has nothing left
+     * to do or a run is already in progress on this node.
+     */
+    public JobRun run() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Weekly sentiment job is already running on this node");
+            return null;
+        }
+        try {
+            String job = JOB_NAME + ":" + currentWeek();
+            failExhausted(job);
+            if (isPlanned(job) && !jobChunkRepositoryImpl.hasClaimable(job, MAX_CHUNK_ATTEMPTS)) {
+                return null;
+            }
+            return runChunks(job);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Joins this week's job only if it was started and still has work left, e.g. chunks of a
+     * node that went away or a plan that was cut short.
+     */
+    public JobRun resumeIfIncomplete() {
+        String job = JOB_NAME + ":" + currentWeek();
+        failExhausted(job);
+        boolean incomplete = jobCheckpointRepository.findById(job)
+                .map(checkpoint -> !checkpoint.isCompleted()
+                        || jobChunkRepositoryImpl.hasClaimable(job, MAX_CHUNK_ATTEMPTS))
+                .orElse(false);
+        return incomplete ? run() : null;
+    }
+
+    /**
+     * Publishes again the records whose marker is still PENDING well after a chunk lease would
+     * have run out: their node stopped before the broker acknowledged them, or before it could
+     * record that it had. The email outbox drops duplicates, so a record that did get through is
+     * not mailed twice. One node at a time. Returns the number published.
+     */
+    public int republishStalled() {
+        String lease = JOB_NAME + ":stalled";
+        if (!jobLeaseRepositoryImpl.tryAcquire(lease, nodeId, PLAN_LEASE)) {
+            return 0;
+        }
+        try {
+            List<WeeklySentimentMark> stalled = weeklySentimentMarkRepositoryImpl.findPendingClaimedBefore(
+                    LocalDateTime.now().minus(Duration.ofMillis(chunkLeaseMs)), STALLED_BATCH_SIZE);
+            List<PendingSend> pending = new ArrayList<>(stalled.size());
+            for (WeeklySentimentMark mark : stalled) {
+                SentimentData data = SentimentData.builder().email(mark.getEmail())
+                        .sentiment(mark.getSentiment()).week(mark.getWeek()).build();
+                pending.add(new PendingSend(mark, data, weeklySentimentPublisher.publish(data)));
+            }
+            Counters counters = new Counters();
+            awaitSends(pending, counters);
+            if (!stalled.isEmpty()) {
+                log.info("Republished {} of {} stalled weekly sentiment records", counters.sent.get(),
+                        stalled.size());
+            }
+            return (int) counters.sent.get();
+        } finally {
+            jobLeaseRepositoryImpl.release(lease, nodeId);
+        }
+    }
+
+    public List<JobRun> recentRuns() {
+        return jobRunRepository.findTop50ByOrderByStartedAtDesc();
+    }
+
+    private JobRun runChunks(String job) {
+        String week = job.substring(JOB_NAME.length() + 1);
+        JobRun run = new JobRun();
+        run.setName(JOB_NAME);
+        run.setCheckpoint(job);
+        run.setNode(nodeId);
+        run.setStatus(JobRunStatus.RUNNING);
+        run.setStartedAt(LocalDateTime.now());
+        jobRunRepository.save(run);
+
+        // fixed by the week, so every chunk on every node and every resume counts the same days
+        LocalDate until = LocalDate.parse(week);
+        LocalDate from = until.minusDays(7);
+        Duration chunkLease = Duration.ofMillis(chunkLeaseMs);
+        Semaphore inFlight = new Semaphore(weeklySentimentExecutor.getMaxPoolSize());
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        Counters counters = new Counters();
+
+        try {
+            boolean planned = false;
+            while (true) {
+                if (!planned) {
+                    planned = plan(job);
+                }
+                inFlight.acquire();
+                JobChunk chunk = jobChunkRepositoryImpl.claimNext(job, nodeId, chunkLease, MAX_CHUNK_ATTEMPTS);
+                if (chunk == null) {
+                    inFlight.release();
+                    if (planned) {
+                        break;
+                    }
+                    // another node is still planning; its chunks show up as it goes
+                    Thread.sleep(PLAN_POLL_MS);
+                    continue;
+                }
+                run.setChunks(run.getChunks() + 1);
+                futures.add(CompletableFuture
+                        .supplyAsync(() -> processChunk(chunk, week, from, until, counters), weeklySentimentExecutor)
+                        .whenComplete((processed, error) -> {
+                            inFlight.release();
+                            if (error != null) {
+                                log.error("Weekly sentiment chunk ({}, {}] failed", chunk.getAfter(),
+                                        chunk.getUpTo(), error);
+                                counters.failedChunks.incrementAndGet();
+                                jobChunkRepositoryImpl.fail(chunk, nodeId, MAX_CHUNK_ATTEMPTS, error.getMessage());
+                            } else {
+                                jobChunkRepositoryImpl.complete(chunk.getId(), nodeId, processed);
+                            }
+                        }));
+            }
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).exceptionally(e -> null).join();
+            run.setStatus(counters.failedChunks.get() == 0 ? JobRunStatus.COMPLETED : JobRunStatus.INCOMPLETE);
+        } catch (Exception e) {
+            log.error("Weekly sentiment job stopped", e);
+            run.setStatus(JobRunStatus.FAILED);
+            run.setError(e.getMessage());
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        finish(run, counters);
+        log.info("Weekly sentiment run {} on {}: {} chunks, {} users in {} ms ({} sent, {} already sent, {} failed, "
+                        + "{} failed chunks)", run.getStatus(), nodeId, run.getChunks(), run.getProcessed(),
+                run.getDurationMs(), run.getSent(), run.getSkipped(), run.getFailed(), run.getFailedChunks());
+        return jobRunRepository.save(run);
+    }
+
+    /**
+     * Cuts the job into chunks if this node gets the planning lease, continuing from wherever an
+     * earlier planner stopped. Returns true once the whole job has been planned, by anyone.
+     */
+    private boolean plan(String job) {
+        if (isPlanned(job)) {
+            return true;
+        }
+        if (!jobLeaseRepositoryImpl.tryAcquire(job + ":plan", nodeId, PLAN_LEASE)) {
+            return false;
+        }
+        try {
+            // re-read under the lease: the previous planner may have got further
+            JobCheckpoint checkpoint = jobCheckpointRepository.findById(job).orElse(new JobCheckpoint(job));
+            while (!checkpoint.isCompleted()) {
+                List<ObjectId> ids = userRepositoryImpl.findSentimentUserIds(checkpoint.getLastProcessedId(),
+                        chunkSize);
+                if (ids.isEmpty()) {
+                    checkpoint.setCompleted(true);
+                } else {
+                    ObjectId upTo = ids.get(ids.size() - 1);
+                    jobChunkRepositoryImpl.addChunk(job, checkpoint.getLastProcessedId(), upTo);
+                    checkpoint.setLastProcessedId(upTo);
+                    checkpoint.setProcessed(checkpoint.getProcessed() + ids.size());
+                }
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+                jobCheckpointRepository.save(checkpoint);
+                jobLeaseRepositoryImpl.tryAcquire(job + ":plan", nodeId, PLAN_LEASE);
+            }
+            log.info("Planned weekly sentiment job {} for {} users", job, checkpoint.getProcessed());
+            return true;
+        } finally {
+            jobLeaseRepositoryImpl.release(job + ":plan", nodeId);
+        }
+    }
+
+    private void failExhausted(String job) {
+        long failed = jobChunkRepositoryImpl.failExhausted(job, MAX_CHUNK_ATTEMPTS);
+        if (failed > 0) {
+            log.error("Gave up on {} weekly sentiment chunks of {} whose lease ran out {} times", failed, job,
+                    MAX_CHUNK_ATTEMPTS);
+        }
+    }
+
+    private boolean isPlanned(String job) {
+        return jobCheckpointRepository.findById(job).map(JobCheckpoint::isCompleted).orElse(false);
+    }
+
+    /**
+     * Publishes the chunk's records without waiting for each one, then waits for all of them
+     * before the chunk counts as done, also when the cursor fails part way. Records the broker
+     * did not take are parked for retry; their marks stay, so the retry path owns them and no
+     * later run sends them again.
+     */
+    private long processChunk(JobChunk chunk, String week, LocalDate from, LocalDate until,
+            Counters counters) {
+        AtomicLong processed = new AtomicLong();
+        List<PendingSend> pending = new ArrayList<>();
+        try (Stream<WeeklySentiment> rows = userRepositoryImpl.streamWeeklySentiments(from, until, chunk.getAfter(),
+                chunk.getUpTo(), CURSOR_BATCH_SIZE)) {
+            rows.forEach(row -> {
+                processed.incrementAndGet();
+                counters.processed.incrementAndGet();
+                SentimentData data = SentimentData.builder().email(row.getEmail())
+                        .sentiment("Sentiment for last 7 days " + row.getSentiment()).week(week).build();
+                WeeklySentimentMark mark = WeeklySentimentMark.pending(row.getUserId(), week, data.getEmail(),
+                        data.getSentiment());
+                try {
+                    weeklySentimentMarkRepositoryImpl.insert(mark);
+                } catch (DuplicateKeyException e) {
+                    counters.skipped.incrementAndGet();
+                    return;
+                }
+                pending.add(new PendingSend(mark, data, weeklySentimentPublisher.publish(data)));
+            });
+        } finally {
+            // also when the cursor failed part way, so the sends already started are recorded
+            awaitSends(pending, counters);
+        }
+        return processed.get();
+    }
+
+    /**
+     * Waits for the sends, parks the ones the broker did not take and moves their marks on:
+     * SENT, or RETRYING once parked. A mark is only moved after the record is safe, so a node
+     * that stops in here leaves PENDING marks for republishStalled.
+     */
+    private void awaitSends(List<PendingSend> pending, Counters counters) {
+        List<String> sent = new ArrayList<>(pending.size());
+        List<String> parked = new ArrayList<>();
+        for (PendingSend send : pending) {
+            try {
+                send.result.join();
+                sent.add(send.mark.getId());
+                counters.sent.incrementAndGet();
+            } catch (Exception e) {
+                log.warn("Could not publish weekly sentiment of user {}, queued for retry", send.mark.getUserId(), e);
+                weeklySentimentPublisher.retryLater(send.mark.getId(), send.mark.getUserId(), send.data, e);
+                parked.add(send.mark.getId());
+                counters.failed.incrementAndGet();
+            }
+        }
+        weeklySentimentMarkRepositoryImpl.setStatus(sent, MarkStatus.SENT);
+        weeklySentimentMarkRepositoryImpl.setStatus(parked, MarkStatus.RETRYING);
+    }
+
+    private void finish(JobRun run, Counters counters) {
+        run.setFinishedAt(LocalDateTime.now());
+        run.setDurationMs(Duration.between(run.getStartedAt(), run.getFinishedAt()).toMillis());
+        run.setFailedChunks(counters.failedChunks.get());
+        run.setProcessed(counters.processed.get());
+        run.setSent(counters.sent.get());
+        run.setSkipped(counters.skipped.get());
+        run.setFailed(counters.failed.get());
+        run.setProcessedPerSecond(run.getDurationMs() > 0 ? run.getProcessed() * 1000.0 / run.getDurationMs() : 0);
+    }
+
+    // a run belongs to the week ending on the most recent Sunday, so reruns during the week share it;
+    // it covers the seven days before that Sunday
+    static String currentWeek() {
+        return weekOf(LocalDate.now());
+    }
+
+    static String weekOf(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY)).toString();
+    }
+
+    private static final class PendingSend {
+        final WeeklySentimentMark mark;
+        final SentimentData data;
+        final CompletableFuture<Void> result;
+
+        PendingSend(WeeklySentimentMark mark, SentimentData data, CompletableFuture<Void> result) {
+            this.mark = mark;
+            this.data = data;
+            this.result = result;
+        }
+    }
+
+    private static final class Counters {
+        final AtomicLong processed = new AtomicLong();
+        final AtomicLong sent = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicInteger failedChunks = new AtomicInteger();
+    }
+}
@@ -0,0 +1,137 @@
+package com.developmentprep.journalApp.utils;
+
+import com.developmentprep.journalApp.entity.JournalEntry;
+import com.developmentprep.journalApp.enums.Sentiment;
+import org.bson.types.ObjectId;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary layout used for journal export/restore (gzip is applied by the caller).
+ *
+ * <pre>
+ * file   := MAGIC VERSION record* END
+ * record := RECORD flags [id:12 bytes] [date:int64 epoch millis UTC] [sentiment:utf] title:str [content:str]
+ * str    := length:int32 utf-8 bytes
+ * </pre>
+ */
+public final class JournalBinaryCodec {
+
+    private static final int MAGIC = 0x4D534A31; // "MSJ1"
+    private static final byte VERSION = 1;
+    private static final byte RECORD = 1;
+    private static final byte END = 0;
+
+    private static final int HAS_ID = 1;
+    private static final int HAS_DATE = 1 << 1;
+    private static final int HAS_SENTIMENT = 1 << 2;
+    private static final int HAS_CONTENT = 1 << 3;
+
+    private JournalBinaryCodec() {
+    }
+
+    public static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    public static void writeEntry(DataOutputStream out, JournalEntry entry) throws IOException {
+        int flags = 0;
+        if (entry.getId() != null) flags |= HAS_ID;
+        if (entry.getDate() != null) flags |= HAS_DATE;
+        if (entry.getSentiment() != null) flags |= HAS_SENTIMENT;
+        if (entry.getContent() != null) flags |= HAS_CONTENT;
+
+        out.writeByte(RECORD);
+        out.writeByte(flags);
+        if (entry.getId() != null) {
+            out.write(entry.getId().toByteArray());
+        }
+        if (entry.getDate() != null) {
+            out.writeLong(entry.getDate().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        if (entry.getSentiment() != null) {
+            out.writeUTF(entry.getSentiment().name());
+        }
+        writeString(out, entry.getTitle() != null ? entry.getTitle() : "");
+        if (entry.getContent() != null) {
+            writeString(out, entry.getContent());
+        }
+    }
+
+    public static void writeEnd(DataOutputStream out) throws IOException {
+        out.writeByte(END);
+    }
+
+    public static void readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a journal export");
+        }
+        byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported journal export version: " + version);
+        }
+    }
+
+    /**
+     * Reads the next entry, or returns null once the end marker is reached.
+     */
+    public static JournalEntry readEntry(DataInputStream in) throws IOException {
+        byte marker = in.readByte();
+        if (marker == END) {
+            return null;
+        }
+        if (marker != RECORD) {
+            throw new IOException("Corrupt journal export");
+        }
+        int flags = in.readUnsignedByte();
+        JournalEntry entry = new JournalEntry();
+        if ((flags & HAS_ID) != 0) {
+            byte[] id = new byte[12];
+            in.readFully(id);
+            entry.setId(new ObjectId(id));
+        }
+        if ((flags & HAS_DATE) != 0) {
+            entry.setDate(LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneOffset.UTC));
+        }
+        if ((flags & HAS_SENTIMENT) != 0) {
+            entry.setSentiment(readSentiment(in));
+        }
+        entry.setTitle(readString(in));
+        if ((flags & HAS_CONTENT) != 0) {
+            entry.setContent(readString(in));
+        }
+        return entry;
+    }
+
+    private static Sentiment readSentiment(DataInputStream in) throws IOException {
+        String name = in.readUTF();
+        try {
+            return Sentiment.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown sentiment in journal export: " + name);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > 1 << 20) {
+            throw new IOException("Corrupt journal export");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,194 @@
+package com.developmentprep.journalApp.utils;
+
+import com.developmentprep.journalApp.enums.Sentiment;
+
+/**
+ * Dependency-free lexicon classifier that picks the Sentiment of a journal entry from its title
+ * and content. Words are scored with per-word weights; title words count double, an intensifier
+ * ("very", "so", ...) doubles the next word and a negation ("not", "never", ...) cancels the
+ * sentiment words among the next few words of its sentence. The highest total wins, ties going
+ * to the first Sentiment; text without any sentiment word is left unclassified (null).
+ *
+ * Classification works on the text in place: words are hashed and compared character by
+ * character against an open-addressing table, so the only allocation per call is the score array.
+ */
+public final class SentimentClassifier {
+
+    private static final Sentiment[] SENTIMENTS = Sentiment.values();
+    private static final int TITLE_WEIGHT = 2;
+    private static final int NEGATION_REACH = 3;
+
+    private static final byte NEGATOR = -1;
+    private static final byte INTENSIFIER = -2;
+
+    // undoes the last step of the word hash, hash = 31 * hash + c, in int arithmetic
+    private static final int INVERSE_31 = 0xBDEF7BDF;
+
+    private static final int TABLE_SIZE = 1024;
+    private static final int MASK = TABLE_SIZE - 1;
+    private static final char[][] WORDS = new char[TABLE_SIZE][];
+    private static final byte[] KINDS = new byte[TABLE_SIZE];
+    private static final byte[] WEIGHTS = new byte[TABLE_SIZE];
+
+    static {
+        word("not", NEGATOR, 0);
+        word("no", NEGATOR, 0);
+        word("never", NEGATOR, 0);
+        word("nothing", NEGATOR, 0);
+        word("hardly", NEGATOR, 0);
+        word("don't", NEGATOR, 0);
+        word("didn't", NEGATOR, 0);
+        word("isn't", NEGATOR, 0);
+        word("wasn't", NEGATOR, 0);
+        word("can't", NEGATOR, 0);
+        word("won't", NEGATOR, 0);
+        word("without", NEGATOR, 0);
+        word("very", INTENSIFIER, 0);
+        word("so", INTENSIFIER, 0);
+        word("really", INTENSIFIER, 0);
+        word("extremely", INTENSIFIER, 0);
+        word("incredibly", INTENSIFIER, 0);
+        word("totally", INTENSIFIER, 0);
+        word("super", INTENSIFIER, 0);
+
+        words(Sentiment.HAPPY, 3, "happy", "happier", "happiest", "happiness", "joy", "joyful", "delighted",
+                "cheerful", "glad", "pleased");
+        words(Sentiment.HAPPY, 2, "good", "great", "nice", "fun", "smile", "smiled", "smiling", "laugh", "laughed",
+                "laughing", "relaxed", "peaceful", "calm", "lovely", "wonderful", "enjoyed", "enjoy", "love", "loved");
+        words(Sentiment.SAD, 3, "sad", "sadder", "sadness", "unhappy", "depressed", "miserable", "heartbroken",
+                "grief", "grieving", "cried", "crying", "tears", "lonely", "hopeless");
+        words(Sentiment.SAD, 2, "gloomy", "miss", "missed", "missing", "hurt", "empty",
+                "tired", "disappointed", "sorry", "bad", "awful", "cry");
+        words(Sentiment.ANGRY, 3, "angry", "angrier", "anger", "furious", "mad", "rage", "raging", "livid",
+                "outraged", "hate", "hated");
+        words(Sentiment.ANGRY, 2, "annoyed", "annoying", "irritated", "frustrated", "frustrating", "frustration",
+                "pissed", "resent", "unfair", "yelled", "shouted", "fight", "argued", "argument");
+        words(Sentiment.ANXIOUS, 3, "anxious", "anxiety", "worried", "worry", "worrying", "nervous", "panic",
+                "afraid", "scared", "fear", "dread", "overwhelmed");
+        words(Sentiment.ANXIOUS, 2, "stress", "stressed", "stressful", "uneasy", "tense", "restless", "uncertain",
+                "deadline", "pressure", "insomnia", "overthinking");
+        words(Sentiment.EXCITED, 3, "excited", "exciting", "excitement", "thrilled", "ecstatic", "pumped",
+                "stoked", "eager");
+        words(Sentiment.EXCITED, 2, "amazing", "awesome", "adventure", "finally", "celebrate", "celebrating",
+                "party", "trip", "launch", "wow");
+        words(Sentiment.GRATEFUL, 3, "grateful", "gratitude", "thankful", "thanks", "thank", "blessed",
+                "appreciate", "appreciated", "appreciative");
+        words(Sentiment.GRATEFUL, 2, "lucky", "fortunate", "kindness", "support", "supported", "helped",
+                "generous", "gift");
+    }
+
+    private SentimentClassifier() {
+    }
+
+    public static Sentiment classify(CharSequence title, CharSequence content) {
+        int[] scores = new int[SENTIMENTS.length];
+        score(title, TITLE_WEIGHT, scores);
+        score(content, 1, scores);
+        int best = -1;
+        for (int i = 0; i < scores.length; i++) {
+            if (scores[i] > 0 && (best < 0 || scores[i] > scores[best])) {
+                best = i;
+            }
+        }
+        return best < 0 ? null : SENTIMENTS[best];
+    }
+
+    private static void score(CharSequence text, int weight, int[] scores) {
+        if (text == null) {
+            return;
+        }
+        int length = text.length();
+        int start = -1;
+        int hash = 0;
+        int negated = 0;
+        int boost = 1;
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? normalize(text.charAt(i)) : ' ';
+            if (Character.isLetter(c) || c == '\'') {
+                if (start < 0) {
+                    start = i;
+                    hash = 0;
+                }
+                hash = 31 * hash + c;
+                continue;
+            }
+            if (start >= 0) {
+                int slot = find(text, start, i - start, hash);
+                if (slot < 0 && i - start > 3 && normalize(text.charAt(i - 1)) == 's') {
+                    // plural or third person: look the word up without its trailing s
+                    slot = find(text, start, i - start - 1, (hash - 's') * INVERSE_31);
+                }
+                byte kind = slot < 0 ? 0 : KINDS[slot];
+                if (kind == NEGATOR) {
+                    negated = NEGATION_REACH;
+                    boost = 1;
+                } else if (kind == INTENSIFIER) {
+                    boost = 2;
+                } else {
+                    if (slot >= 0 && negated == 0) {
+                        scores[kind - 1] += WEIGHTS[slot] * weight * boost;
+                    }
+                    if (negated > 0) {
+                        negated--;
+                    }
+                    boost = 1;
+                }
+                start = -1;
+            }
+            if (c == '.' || c == '!' || c == '?' || c == ';' || c == '\n') {
+                negated = 0;
+                boost = 1;
+            }
+        }
+    }
+
+    private static int find(CharSequence text, int start, int length, int hash) {
+        for (int slot = spread(hash) & MASK; WORDS[slot] != null; slot = (slot + 1) & MASK) {
+            char[] word = WORDS[slot];
+            if (word.length == length && matches(word, text, start)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean matches(char[] word, CharSequence text, int start) {
+        for (int i = 0; i < word.length; i++) {
+            if (word[i] != normalize(text.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char normalize(char c) {
+        if (c == '\u2019') {
+            return '\'';
+        }
+        return c < 128 ? (c >= 'A' && c <= 'Z' ? (char) (c + 32) : c) : Character.toLowerCase(c);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static void words(Sentiment sentiment, int weight, String... words) {
+        for (String word : words) {
+            word(word, (byte) (sentiment.ordinal() + 1), weight);
+        }
+    }
+
+    private static void word(String word, byte kind, int weight) {
+        int hash = 0;
+        for (int i = 0; i < word.length(); i++) {
+            hash = 31 * hash + word.charAt(i);
+        }
+        int slot = spread(hash) & MASK;
+        while (WORDS[slot] != null) {
+            slot = (slot + 1) & MASK;
+        }
+        WORDS[slot] = word.toCharArray();
+        KINDS[slot] = kind;
+        WEIGHTS[slot] = (byte) weight;
+    }
+}
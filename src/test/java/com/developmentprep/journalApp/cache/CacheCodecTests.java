@@ -0,0 +1,81 @@
+package com.developmentprep.journalApp.cache;
+
+import com.developmentprep.journalApp.dto.SentimentAnalytics;
+import com.developmentprep.journalApp.enums.Sentiment;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheCodecTests {
+
+    @Test
+    public void testEncode_RoundTripsEveryFormatAndCompression() throws Exception {
+        SentimentAnalytics analytics = analytics(200);
+        for (CacheCodec.Format format : CacheCodec.Format.values()) {
+            for (CacheCodec.Compression compression : CacheCodec.Compression.values()) {
+                CacheCodec<SentimentAnalytics> codec = new CacheCodec<>(SentimentAnalytics.class, format,
+                        compression, 64);
+                byte[] encoded = codec.encode(analytics);
+
+                assertEquals(analytics, codec.decode(encoded), format + "/" + compression);
+                if (compression != CacheCodec.Compression.NONE) {
+                    byte[] plain = new CacheCodec<>(SentimentAnalytics.class, format, CacheCodec.Compression.NONE,
+                            64).encode(analytics);
+                    assertTrue(encoded.length < plain.length, format + "/" + compression);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDecode_ReadsValuesWrittenWithOtherSettings() throws Exception {
+        SentimentAnalytics analytics = analytics(50);
+        byte[] cbor = new CacheCodec<>(SentimentAnalytics.class, CacheCodec.Format.CBOR,
+                CacheCodec.Compression.DEFLATE, 16).encode(analytics);
+        CacheCodec<SentimentAnalytics> smile = new CacheCodec<>(SentimentAnalytics.class, CacheCodec.Format.SMILE,
+                CacheCodec.Compression.LZ4, 16);
+
+        assertEquals(analytics, smile.decode(cbor));
+    }
+
+    @Test
+    public void testDecode_ReadsLegacyJsonText() throws Exception {
+        byte[] legacy = "{\"from\":[2026,3,1],\"to\":[2026,3,31],\"entries\":4,\"activeWriters\":2}"
+                .getBytes(StandardCharsets.UTF_8);
+        CacheCodec<SentimentAnalytics> codec = new CacheCodec<>(SentimentAnalytics.class, CacheCodec.Format.SMILE,
+                CacheCodec.Compression.LZ4, 1024);
+
+        SentimentAnalytics analytics = codec.decode(legacy);
+
+        assertEquals(LocalDate.of(2026, 3, 1), analytics.getFrom());
+        assertEquals(4, analytics.getEntries());
+    }
+
+    @Test
+    public void testEncode_SmallValuesStayUncompressed() throws Exception {
+        CacheCodec<SentimentAnalytics> codec = new CacheCodec<>(SentimentAnalytics.class, CacheCodec.Format.SMILE,
+                CacheCodec.Compression.LZ4, 1024);
+        byte[] encoded = codec.encode(analytics(1));
+
+        // header: SMILE, no compression
+        assertEquals(CacheCodec.Format.SMILE.ordinal() << 2, encoded[0]);
+        assertThrows(IOException.class, () -> codec.decode(new byte[]{0x0F, 1, 2}));
+    }
+
+    private static SentimentAnalytics analytics(int days) {
+        LocalDate from = LocalDate.of(2026, 1, 1);
+        List<SentimentAnalytics.Day> perDay = new ArrayList<>();
+        for (int i = 0; i < days; i++) {
+            perDay.add(new SentimentAnalytics.Day(from.plusDays(i), 10 + i % 7, 3 + i % 5));
+        }
+        return new SentimentAnalytics(from, from.plusDays(days - 1), 1234, 56,
+                Map.of(Sentiment.HAPPY, 700L, Sentiment.SAD, 300L, Sentiment.ANGRY, 234L), perDay);
+    }
+}
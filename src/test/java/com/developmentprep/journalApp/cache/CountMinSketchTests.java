@@ -0,0 +1,35 @@
+package com.developmentprep.journalApp.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CountMinSketchTests {
+
+    @Test
+    public void testEstimate_NeverBelowTrueCount() {
+        CountMinSketch sketch = new CountMinSketch(256);
+        for (int i = 0; i < 500; i++) {
+            sketch.increment("city-" + (i % 50));
+        }
+        for (int i = 0; i < 50; i++) {
+            assertTrue(sketch.estimate("city-" + i) >= 10);
+        }
+    }
+
+    @Test
+    public void testIncrement_AgesCountsAfterSample() {
+        CountMinSketch sketch = new CountMinSketch(16);
+        for (int i = 0; i < 100; i++) {
+            sketch.increment("Delhi");
+        }
+        int before = sketch.estimate("Delhi");
+        // the sample for width 16 is 160 increments
+        for (int i = 0; i < 60; i++) {
+            sketch.increment("Pune");
+        }
+
+        assertTrue(sketch.estimate("Delhi") <= before / 2 + 1);
+        assertTrue(sketch.estimate("Delhi") > sketch.estimate("Goa"));
+    }
+}
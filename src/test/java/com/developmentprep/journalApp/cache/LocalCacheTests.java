@@ -0,0 +1,105 @@
+package com.developmentprep.journalApp.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocalCacheTests {
+
+    @Test
+    public void testGet_ConcurrentMissesShareOneLoad() throws Exception {
+        LocalCache<String> cache = new LocalCache<>(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> cache.get("weather_of_Delhi", key -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "sunny";
+                })));
+            }
+            // all but the loading caller end up waiting on its load
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (cache.getCoalesced() < 7 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("sunny", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getMisses());
+        assertEquals(7, cache.getCoalesced());
+        assertEquals("sunny", cache.get("weather_of_Delhi", key -> fail("should be cached")));
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    public void testGet_ExpiresAfterTtlAndEvictsLeastRecentlyUsed() {
+        AtomicLong now = new AtomicLong();
+        LocalCache<String> cache = new LocalCache<>(2, Duration.ofSeconds(60), now::get);
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.getIfPresent("a");
+        cache.put("c", "3");
+
+        // b was used least recently
+        assertNull(cache.getIfPresent("b"));
+        assertEquals("1", cache.getIfPresent("a"));
+        assertEquals(1, cache.getEvictions());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        assertNull(cache.getIfPresent("a"));
+        assertEquals("4", cache.get("c", key -> "4"));
+    }
+
+    @Test
+    public void testReplace_KeepsExpiryAndSkipsMissingKeys() {
+        AtomicLong now = new AtomicLong();
+        LocalCache<String> cache = new LocalCache<>(10, Duration.ofSeconds(60), now::get);
+        cache.put("a", "1");
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(50));
+        assertTrue(cache.replace("a", "2"));
+        assertFalse(cache.replace("b", "2"));
+        assertEquals("2", cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"));
+
+        // still expires 60s after the put, not after the replace
+        now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertNull(cache.getIfPresent("a"));
+    }
+
+    @Test
+    public void testGet_NullIsNotCached() {
+        LocalCache<String> cache = new LocalCache<>(10, Duration.ofMinutes(1));
+        assertNull(cache.get("weather_of_Nowhere", key -> null));
+        assertEquals("later", cache.get("weather_of_Nowhere", key -> "later"));
+        assertEquals(2, cache.getMisses());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
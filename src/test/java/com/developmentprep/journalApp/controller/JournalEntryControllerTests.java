@@ -1,8 +1,16 @@
 package com.developmentprep.journalApp.controller;
 
+import com.developmentprep.journalApp.config.AsyncConfig;
+import com.developmentprep.journalApp.config.WebMvcConfig;
+import com.developmentprep.journalApp.dto.JournalEntryPage;
 import com.developmentprep.journalApp.entity.JournalEntry;
 import com.developmentprep.journalApp.entity.User;
+import com.developmentprep.journalApp.enums.ExportFormat;
+import com.developmentprep.journalApp.service.JournalBatchService;
 import com.developmentprep.journalApp.service.JournalEntryService;
+import com.developmentprep.journalApp.service.JournalExportService;
+import com.developmentprep.journalApp.service.JournalSyncService;
+import com.developmentprep.journalApp.service.SentimentRollupService;
 import com.developmentprep.journalApp.service.UserDetailsServiceImpl;
 import com.developmentprep.journalApp.service.UserService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,6 +22,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
@@ -21,18 +30,31 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ActiveProfiles("test")
 @WebMvcTest(JournalEntryController.class)
+@Import(WebMvcConfig.class)
 public class JournalEntryControllerTests {
 
     @Autowired
@@ -41,6 +63,18 @@ public class JournalEntryControllerTests {
     @MockBean
     private JournalEntryService journalEntryService;
 
+    @MockBean
+    private JournalBatchService journalBatchService;
+
+    @MockBean
+    private JournalExportService journalExportService;
+
+    @MockBean
+    private JournalSyncService journalSyncService;
+
+    @MockBean
+    private SentimentRollupService sentimentRollupService;
+
     @MockBean
     private UserService userService;
 
@@ -59,6 +93,11 @@ public class JournalEntryControllerTests {
         public PasswordEncoder passwordEncoder() {
             return new BCryptPasswordEncoder();
         }
+
+        @Bean(name = "applicationTaskExecutor")
+        public ThreadPoolTaskExecutor applicationTaskExecutor() {
+            return new AsyncConfig().applicationTaskExecutor(2, 10);
+        }
     }
 
     @Autowired
@@ -79,7 +118,8 @@ public class JournalEntryControllerTests {
     public void testGetAllJournalEntriesOfUser_Success() throws Exception {
         JournalEntry entry = new JournalEntry();
         entry.setTitle("Test Entry");
-        testUser.getJournalEntries().add(entry);
+        when(journalEntryService.findPageForUser(eq("testuser"), isNull(), anyInt(), isNull()))
+                .thenReturn(new JournalEntryPage(List.of(entry), null));
 
         mockMvc.perform(get("/journal"))
                 .andExpect(status().isOk())
@@ -89,6 +129,9 @@ public class JournalEntryControllerTests {
     @Test
     @WithMockUser(username = "testuser")
     public void testGetAllJournalEntriesOfUser_NotFound() throws Exception {
+        when(journalEntryService.findPageForUser(eq("testuser"), isNull(), anyInt(), isNull()))
+                .thenReturn(new JournalEntryPage(List.of(), null));
+
         mockMvc.perform(get("/journal"))
                 .andExpect(status().isNotFound());
     }
@@ -113,9 +156,8 @@ public class JournalEntryControllerTests {
         JournalEntry entry = new JournalEntry();
         entry.setId(entryId);
         entry.setTitle("Specific Entry");
-        testUser.getJournalEntries().add(entry);
 
-        when(journalEntryService.findById(entryId)).thenReturn(Optional.of(entry));
+        when(journalEntryService.findOwnedById(entryId, "testuser", null)).thenReturn(Optional.of(entry));
 
         mockMvc.perform(get("/journal/id/{myId}", entryId))
                 .andExpect(status().isOk())
@@ -127,7 +169,7 @@ public class JournalEntryControllerTests {
     public void testGetJournalEntryById_NotFound() throws Exception {
         ObjectId entryId = new ObjectId();
         // User does not have this entry
-        when(journalEntryService.findById(entryId)).thenReturn(Optional.empty());
+        when(journalEntryService.findOwnedById(entryId, "testuser", null)).thenReturn(Optional.empty());
 
         mockMvc.perform(get("/journal/id/{myId}", entryId))
                 .andExpect(status().isNotFound());
@@ -147,14 +189,15 @@ public class JournalEntryControllerTests {
     @WithMockUser(username = "testuser")
     public void testUpdateJournalEntryById_Success() throws Exception {
         ObjectId entryId = new ObjectId();
-        JournalEntry existingEntry = new JournalEntry();
-        existingEntry.setId(entryId);
-        testUser.getJournalEntries().add(existingEntry);
+        JournalEntry updatedEntry = new JournalEntry();
+        updatedEntry.setId(entryId);
+        updatedEntry.setTitle("Updated Title");
 
         JournalEntry newEntryData = new JournalEntry();
         newEntryData.setTitle("Updated Title");
 
-        when(journalEntryService.findById(entryId)).thenReturn(Optional.of(existingEntry));
+        when(journalEntryService.updateOwnedById(eq(entryId), eq("testuser"), any(JournalEntry.class)))
+                .thenReturn(Optional.of(updatedEntry));
 
         mockMvc.perform(put("/journal/id/{id}", entryId)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -162,4 +205,25 @@ public class JournalEntryControllerTests {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.title").value("Updated Title"));
     }
+
+    @Test
+    @WithMockUser(username = "testuser")
+    public void testExportJournal_StreamsOnApplicationTaskExecutor() throws Exception {
+        StringBuilder writerThread = new StringBuilder();
+        StreamingResponseBody body = out -> {
+            writerThread.append(Thread.currentThread().getName());
+            out.write("{}\n".getBytes(StandardCharsets.UTF_8));
+        };
+        when(journalExportService.export("testuser", ExportFormat.NDJSON)).thenReturn(body);
+
+        MvcResult result = mockMvc.perform(get("/journal/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{}\n"));
+
+        // the body is written by the bounded MVC pool, not a thread started for this request
+        assertTrue(writerThread.toString().startsWith("mvc-async-"), writerThread.toString());
+    }
 }
@@ -0,0 +1,41 @@
+package com.developmentprep.journalApp.model;
+
+import com.developmentprep.journalApp.entity.JournalEntry;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalFieldSetTests {
+
+    @Test
+    public void testNoParametersMeansFullEntry() {
+        assertNull(JournalFieldSet.parse(null, null));
+    }
+
+    @Test
+    public void testSummaryViewLeavesOutContent() {
+        JournalFieldSet summary = JournalFieldSet.parse(null, "summary");
+
+        assertArrayEquals(new String[]{"_id", "title", "date", "sentiment"}, summary.documentFields());
+    }
+
+    @Test
+    public void testRenderOnlyRequestedFields() {
+        JournalEntry entry = new JournalEntry();
+        entry.setId(new ObjectId());
+        entry.setTitle("Title");
+        entry.setContent("Long content");
+
+        Map<String, Object> rendered = JournalFieldSet.parse("id, title", null).render(entry);
+
+        assertEquals(Map.of("id", entry.getId().toHexString(), "title", "Title"), rendered);
+    }
+
+    @Test
+    public void testRejectsUnknownField() {
+        assertThrows(IllegalArgumentException.class, () -> JournalFieldSet.parse("id,ownerId", null));
+    }
+}
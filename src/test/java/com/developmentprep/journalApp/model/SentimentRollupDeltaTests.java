@@ -0,0 +1,41 @@
+package com.developmentprep.journalApp.model;
+
+import com.developmentprep.journalApp.enums.Sentiment;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SentimentRollupDeltaTests {
+
+    @Test
+    public void testChangesOnTheSameDayAreMergedAndCancelOut() {
+        LocalDateTime morning = LocalDateTime.of(2026, 10, 12, 8, 0);
+        LocalDateTime evening = morning.withHour(21);
+
+        SentimentRollupDelta delta = new SentimentRollupDelta()
+                .added(morning, Sentiment.HAPPY)
+                .added(evening, Sentiment.SAD)
+                .changed(evening, Sentiment.SAD, Sentiment.HAPPY)
+                .added(morning.plusDays(1), Sentiment.ANXIOUS)
+                .removed(morning.plusDays(1), Sentiment.ANXIOUS);
+
+        Map<LocalDate, Map<Sentiment, Long>> days = new HashMap<>();
+        delta.forEachDay(days::put);
+        assertEquals(Map.of(morning.toLocalDate(), Map.of(Sentiment.HAPPY, 2L)), days);
+    }
+
+    @Test
+    public void testEntriesWithoutSentimentOrDateAreNotCounted() {
+        SentimentRollupDelta delta = new SentimentRollupDelta()
+                .added(LocalDateTime.now(), null)
+                .added(null, Sentiment.HAPPY)
+                .changed(LocalDateTime.now(), Sentiment.SAD, Sentiment.SAD);
+
+        assertTrue(delta.isEmpty());
+    }
+}
@@ -0,0 +1,130 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.config.NodeIdentity;
+import com.developmentprep.journalApp.entity.AccountPurge;
+import com.developmentprep.journalApp.enums.PurgeStatus;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.repository.AccountPurgeRepository;
+import com.developmentprep.journalApp.repository.JobLeaseRepositoryImpl;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
+import com.developmentprep.journalApp.repository.SentimentRollupRepositoryImpl;
+import com.developmentprep.journalApp.repository.UserRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountPurgeServiceTests {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+
+    @Mock
+    private SentimentRollupRepositoryImpl sentimentRollupRepositoryImpl;
+
+    @Mock
+    private AccountPurgeRepository accountPurgeRepository;
+
+    @Mock
+    private JobLeaseRepositoryImpl jobLeaseRepositoryImpl;
+
+    @Mock
+    private ThreadPoolTaskExecutor purgeExecutor;
+
+    private AccountPurgeService accountPurgeService;
+
+    @BeforeEach
+    void setUp() {
+        accountPurgeService = new AccountPurgeService(userService, userRepository, journalEntryRepositoryImpl,
+                sentimentRollupRepositoryImpl, accountPurgeRepository, jobLeaseRepositoryImpl,
+                new NodeIdentity("node-1"), purgeExecutor);
+        ReflectionTestUtils.setField(accountPurgeService, "sweepIntervalMs", 60000L);
+        ReflectionTestUtils.setField(accountPurgeService, "retryAfterMs", 600000L);
+        ReflectionTestUtils.setField(accountPurgeService, "maxAttempts", 5);
+        lenient().when(accountPurgeRepository.save(any(AccountPurge.class))).thenAnswer(i -> i.getArgument(0));
+    }
+
+    @Test
+    public void testDeleteUserAndEntriesAsync_QueueFullLeavesPendingPurge() {
+        ObjectId legacyId = new ObjectId();
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of(legacyId));
+        when(userService.findJournalOwner("alice")).thenReturn(owner);
+        doThrow(new TaskRejectedException("full")).when(purgeExecutor).execute(any(Runnable.class));
+
+        AccountPurge purge = accountPurgeService.deleteUserAndEntriesAsync("alice");
+
+        // the purge is recorded before the user goes, so the sweep can still find the entries
+        InOrder order = inOrder(accountPurgeRepository, userRepository);
+        order.verify(accountPurgeRepository).save(any(AccountPurge.class));
+        order.verify(userRepository).deleteByUserName("alice");
+        assertEquals(PurgeStatus.PENDING, purge.getStatus());
+        assertEquals(owner.getUserId(), purge.getUserId());
+        assertEquals(List.of(legacyId), purge.getLegacyEntryIds());
+        verifyNoInteractions(journalEntryRepositoryImpl);
+    }
+
+    @Test
+    public void testResumeUnfinished_RerunsPurgeWithSavedOwner() {
+        ObjectId legacyId = new ObjectId();
+        AccountPurge failed = new AccountPurge();
+        failed.setUserName("bob");
+        failed.setUserId(new ObjectId());
+        failed.setLegacyEntryIds(List.of(legacyId));
+        failed.setStatus(PurgeStatus.FAILED);
+        failed.setAttempts(1);
+        failed.setDeletedEntries(40);
+        failed.setError("timeout");
+        when(jobLeaseRepositoryImpl.tryAcquire(eq(AccountPurgeService.SWEEP_JOB_NAME), eq("node-1"), any()))
+                .thenReturn(true);
+        when(accountPurgeRepository.findTop50ByStatusInAndUpdatedAtBeforeAndAttemptsLessThanOrderByUpdatedAtAsc(
+                anyCollection(), any(LocalDateTime.class), eq(5))).thenReturn(List.of(failed));
+        doAnswer(i -> {
+            ((Runnable) i.getArgument(0)).run();
+            return null;
+        }).when(purgeExecutor).execute(any(Runnable.class));
+        when(journalEntryRepositoryImpl.deleteAllOwned(any(JournalOwner.class), anyInt(), any())).thenReturn(10L);
+
+        accountPurgeService.resumeUnfinished();
+
+        ArgumentCaptor<JournalOwner> owner = ArgumentCaptor.forClass(JournalOwner.class);
+        verify(journalEntryRepositoryImpl).deleteAllOwned(owner.capture(), anyInt(), any());
+        assertEquals(failed.getUserId(), owner.getValue().getUserId());
+        assertEquals(List.of(legacyId), owner.getValue().getLegacyEntryIds());
+        verify(sentimentRollupRepositoryImpl).deleteAllOwned(failed.getUserId());
+        assertEquals(PurgeStatus.COMPLETED, failed.getStatus());
+        assertEquals(2, failed.getAttempts());
+        assertEquals(50, failed.getDeletedEntries());
+        assertNull(failed.getError());
+    }
+
+    @Test
+    public void testResumeUnfinished_SkipsWithoutLease() {
+        when(jobLeaseRepositoryImpl.tryAcquire(eq(AccountPurgeService.SWEEP_JOB_NAME), eq("node-1"), any()))
+                .thenReturn(false);
+
+        accountPurgeService.resumeUnfinished();
+
+        verifyNoInteractions(accountPurgeRepository, purgeExecutor);
+    }
+}
@@ -0,0 +1,260 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.dto.JournalMutation;
+import com.developmentprep.journalApp.dto.JournalMutationResult;
+import com.developmentprep.journalApp.entity.JournalEntry;
+import com.developmentprep.journalApp.enums.MutationStatus;
+import com.developmentprep.journalApp.enums.MutationType;
+import com.developmentprep.journalApp.enums.Sentiment;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.model.SentimentRollupDelta;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.WriteConcernError;
+import jakarta.validation.Validation;
+import org.bson.BsonDocument;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JournalBatchServiceTests {
+
+    @Mock
+    private JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private SentimentRollupService sentimentRollupService;
+
+    @Mock
+    private SentimentClassificationService sentimentClassificationService;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private JournalBatchService journalBatchService;
+
+    @BeforeEach
+    void setUp() {
+        journalBatchService = new JournalBatchService(journalEntryRepositoryImpl, userService, sentimentRollupService,
+                sentimentClassificationService, Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Test
+    public void testApply_ReportsResultPerMutation() {
+        String username = "testuser";
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+        ObjectId owned = new ObjectId();
+        ObjectId foreign = new ObjectId();
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        JournalEntry ownedEntry = new JournalEntry();
+        ownedEntry.setId(owned);
+        ownedEntry.setOwnerId(owner.getUserId());
+        when(journalEntryRepositoryImpl.orderedBulk()).thenReturn(bulkOperations);
+        when(journalEntryRepositoryImpl.updateOwnedReturningPrevious(eq(owned), eq(owner), any(Update.class)))
+                .thenReturn(ownedEntry, (JournalEntry) null);
+        when(journalEntryRepositoryImpl.removeOwned(owned, owner)).thenReturn(ownedEntry);
+
+        List<JournalMutationResult> results = journalBatchService.apply(username, List.of(
+                new JournalMutation(MutationType.CREATE, null, "Offline entry", "Written on the train", null),
+                new JournalMutation(MutationType.CREATE, null, "x", null, null),
+                new JournalMutation(MutationType.UPDATE, owned, "Renamed", null, null),
+                new JournalMutation(MutationType.DELETE, owned, null, null, null),
+                new JournalMutation(MutationType.UPDATE, owned, "Too late", null, null),
+                new JournalMutation(MutationType.DELETE, foreign, null, null, null)));
+
+        assertEquals(MutationStatus.CREATED, results.get(0).getStatus());
+        assertEquals(MutationStatus.INVALID, results.get(1).getStatus());
+        assertEquals(MutationStatus.UPDATED, results.get(2).getStatus());
+        assertEquals(MutationStatus.DELETED, results.get(3).getStatus());
+        assertEquals(MutationStatus.NOT_FOUND, results.get(4).getStatus());
+        assertEquals(MutationStatus.NOT_FOUND, results.get(5).getStatus());
+
+        verify(bulkOperations, times(1)).insert(any(JournalEntry.class));
+        verify(bulkOperations, times(1)).execute();
+        verify(journalEntryRepositoryImpl).removeOwned(foreign, owner);
+        verify(journalEntryRepositoryImpl).addTombstones(List.of(owned), owner);
+    }
+
+    @Test
+    public void testApply_CountsFromEntryAsWritten() {
+        String username = "testuser";
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+        ObjectId updated = new ObjectId();
+        ObjectId gone = new ObjectId();
+        LocalDateTime date = LocalDateTime.now().minusDays(1);
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.orderedBulk()).thenReturn(bulkOperations);
+        // another request already made it SAD, and already deleted the other entry
+        JournalEntry previous = legacyEntry(updated, date);
+        previous.setOwnerId(owner.getUserId());
+        previous.setSentiment(Sentiment.SAD);
+        when(journalEntryRepositoryImpl.updateOwnedReturningPrevious(eq(updated), eq(owner), any(Update.class)))
+                .thenReturn(previous);
+        when(journalEntryRepositoryImpl.removeOwned(gone, owner)).thenReturn(null);
+
+        List<JournalMutationResult> results = journalBatchService.apply(username, List.of(
+                new JournalMutation(MutationType.UPDATE, updated, null, null, Sentiment.HAPPY),
+                new JournalMutation(MutationType.DELETE, gone, null, null, null)));
+
+        assertEquals(MutationStatus.UPDATED, results.get(0).getStatus());
+        assertEquals(MutationStatus.NOT_FOUND, results.get(1).getStatus());
+        ArgumentCaptor<SentimentRollupDelta> delta = ArgumentCaptor.forClass(SentimentRollupDelta.class);
+        verify(sentimentRollupService).record(eq(owner.getUserId()), delta.capture());
+        Map<LocalDate, Map<Sentiment, Long>> days = new HashMap<>();
+        delta.getValue().forEachDay(days::put);
+        assertEquals(Map.of(date.toLocalDate(), Map.of(Sentiment.SAD, -1L, Sentiment.HAPPY, 1L)), days);
+        verify(journalEntryRepositoryImpl, never()).addTombstones(any(), any());
+        verify(bulkOperations, never()).execute();
+    }
+
+    @Test
+    public void testApply_LegacyEntriesCountOnlyOnceStamped() {
+        String username = "testuser";
+        ObjectId updated = new ObjectId();
+        ObjectId deleted = new ObjectId();
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of(updated, deleted));
+        LocalDateTime date = LocalDateTime.now().minusDays(3);
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.orderedBulk()).thenReturn(bulkOperations);
+        when(journalEntryRepositoryImpl.updateOwnedReturningPrevious(eq(updated), eq(owner), any(Update.class)))
+                .thenReturn(legacyEntry(updated, date));
+        when(journalEntryRepositoryImpl.removeOwned(deleted, owner)).thenReturn(legacyEntry(deleted, date));
+
+        journalBatchService.apply(username, List.of(
+                new JournalMutation(MutationType.UPDATE, updated, "Renamed", null, null),
+                new JournalMutation(MutationType.DELETE, deleted, null, null, null)));
+
+        ArgumentCaptor<SentimentRollupDelta> delta = ArgumentCaptor.forClass(SentimentRollupDelta.class);
+        verify(sentimentRollupService).record(eq(owner.getUserId()), delta.capture());
+        Map<LocalDate, Map<Sentiment, Long>> days = new HashMap<>();
+        delta.getValue().forEachDay(days::put);
+        assertEquals(Map.of(date.toLocalDate(), Map.of(Sentiment.HAPPY, 1L)), days);
+    }
+
+    @Test
+    public void testApply_WriteConcernErrorKeepsAppliedWrites() {
+        String username = "testuser";
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.orderedBulk()).thenReturn(bulkOperations);
+        MongoBulkWriteException writeConcernOnly = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(), new WriteConcernError(64, "waiting for replication timed out", "", new BsonDocument()),
+                new ServerAddress(), Set.of());
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("write concern", writeConcernOnly));
+
+        List<JournalMutationResult> results = journalBatchService.apply(username, List.of(
+                new JournalMutation(MutationType.CREATE, null, "Offline entry", "Written on the train", null)));
+
+        assertEquals(MutationStatus.CREATED, results.get(0).getStatus());
+    }
+
+    @Test
+    public void testApply_FailedInsertIsNotCounted() {
+        String username = "testuser";
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.orderedBulk()).thenReturn(bulkOperations);
+        MongoBulkWriteException secondFailed = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(50, "operation exceeded time limit", new BsonDocument(), 1)), null,
+                new ServerAddress(), Set.of());
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("failed", secondFailed));
+
+        List<JournalMutationResult> results = journalBatchService.apply(username, List.of(
+                new JournalMutation(MutationType.CREATE, null, "First", "Made it", Sentiment.HAPPY),
+                new JournalMutation(MutationType.CREATE, null, "Second", "Timed out", Sentiment.SAD)));
+
+        assertEquals(MutationStatus.CREATED, results.get(0).getStatus());
+        assertEquals(MutationStatus.FAILED, results.get(1).getStatus());
+        ArgumentCaptor<SentimentRollupDelta> delta = ArgumentCaptor.forClass(SentimentRollupDelta.class);
+        verify(sentimentRollupService).record(eq(owner.getUserId()), delta.capture());
+        Map<LocalDate, Map<Sentiment, Long>> days = new HashMap<>();
+        delta.getValue().forEachDay(days::put);
+        assertEquals(Map.of(LocalDate.now(), Map.of(Sentiment.HAPPY, 1L)), days);
+    }
+
+    @Test
+    public void testApply_ClassifiesOnlyInsertedEntries() {
+        String username = "testuser";
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.orderedBulk()).thenReturn(bulkOperations);
+        MongoBulkWriteException secondFailed = new MongoBulkWriteException(BulkWriteResult.unacknowledged(),
+                List.of(new BulkWriteError(11000, "duplicate key", new BsonDocument(), 1)), null,
+                new ServerAddress(), Set.of());
+        when(bulkOperations.execute()).thenThrow(new BulkOperationException("failed", secondFailed));
+
+        journalBatchService.apply(username, List.of(
+                new JournalMutation(MutationType.CREATE, null, "First", "Made it", null),
+                new JournalMutation(MutationType.CREATE, null, "Second", "Rejected", null)));
+
+        ArgumentCaptor<JournalEntry> queued = ArgumentCaptor.forClass(JournalEntry.class);
+        verify(sentimentClassificationService).classifyLater(queued.capture());
+        assertEquals("First", queued.getValue().getTitle());
+    }
+
+    @Test
+    public void testApply_FailedLegacyDeleteKeepsReference() {
+        String username = "testuser";
+        ObjectId removed = new ObjectId();
+        ObjectId kept = new ObjectId();
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of(removed, kept));
+        LocalDateTime date = LocalDateTime.now();
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.orderedBulk()).thenReturn(bulkOperations);
+        when(journalEntryRepositoryImpl.removeOwned(removed, owner)).thenReturn(legacyEntry(removed, date));
+        when(journalEntryRepositoryImpl.removeOwned(kept, owner))
+                .thenThrow(new QueryTimeoutException("operation exceeded time limit"));
+
+        List<JournalMutationResult> results = journalBatchService.apply(username, List.of(
+                new JournalMutation(MutationType.DELETE, removed, null, null, null),
+                new JournalMutation(MutationType.DELETE, kept, null, null, null)));
+
+        assertEquals(MutationStatus.DELETED, results.get(0).getStatus());
+        assertEquals(MutationStatus.FAILED, results.get(1).getStatus());
+        verify(journalEntryRepositoryImpl).addTombstones(List.of(removed), owner);
+        verify(userService).removeLegacyEntryRef(owner.getUserId(), removed);
+        verify(userService, never()).removeLegacyEntryRef(owner.getUserId(), kept);
+    }
+
+    private static JournalEntry legacyEntry(ObjectId id, LocalDateTime date) {
+        JournalEntry entry = new JournalEntry();
+        entry.setId(id);
+        entry.setDate(date);
+        entry.setSentiment(Sentiment.HAPPY);
+        return entry;
+    }
+}
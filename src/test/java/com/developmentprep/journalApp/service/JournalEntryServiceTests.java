@@ -1,20 +1,37 @@
 package com.developmentprep.journalApp.service;
 
+import com.developmentprep.journalApp.dto.JournalEntryPage;
+import com.developmentprep.journalApp.dto.JournalEntryPatch;
 import com.developmentprep.journalApp.entity.JournalEntry;
-import com.developmentprep.journalApp.entity.User;
+import com.developmentprep.journalApp.enums.Sentiment;
+import com.developmentprep.journalApp.model.JournalCursor;
+import com.developmentprep.journalApp.model.JournalEntryFilter;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.model.SentimentRollupDelta;
 import com.developmentprep.journalApp.repository.JournalEntryRepository;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
+import org.bson.Document;
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.query.Update;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,27 +42,100 @@ public class JournalEntryServiceTests {
     @Mock
     private JournalEntryRepository journalEntryRepository;
 
+    @Mock
+    private JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+
     @Mock
     private UserService userService;
 
+    @Mock
+    private SentimentRollupService sentimentRollupService;
+
+    @Mock
+    private SentimentClassificationService sentimentClassificationService;
+
     @Test
     public void testSaveNewEntry() {
         String username = "testuser";
-        User user = new User();
-        user.setUserName(username);
-        user.setJournalEntries(new ArrayList<>());
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
         JournalEntry entry = new JournalEntry();
         entry.setTitle("Test Title");
+        // copied from an entry the client read earlier
+        entry.setId(new ObjectId());
+        entry.setVersion(4L);
 
-        when(userService.findByUserName(username)).thenReturn(user);
+        when(userService.findJournalOwner(username)).thenReturn(owner);
         when(journalEntryRepository.save(any(JournalEntry.class))).thenReturn(entry);
 
         journalEntryService.saveEntry(entry, username);
 
         verify(journalEntryRepository, times(1)).save(entry);
-        verify(userService, times(1)).saveUser(user);
-        assertFalse(user.getJournalEntries().isEmpty());
-        assertEquals("Test Title", user.getJournalEntries().get(0).getTitle());
+        verify(userService, never()).saveUser(any());
+        assertNull(entry.getId());
+        assertNull(entry.getVersion());
+        assertEquals(owner.getUserId(), entry.getOwnerId());
+        assertNotNull(entry.getDate());
+        verify(sentimentClassificationService).classifyLater(entry);
+    }
+
+    @Test
+    public void testFindPageForUser_ReturnsCursorWhenMoreEntriesExist() {
+        String username = "testuser";
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+        LocalDateTime now = LocalDateTime.now();
+        List<JournalEntry> fetched = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            JournalEntry entry = new JournalEntry();
+            entry.setId(new ObjectId());
+            entry.setDate(now.minusMinutes(i));
+            fetched.add(entry);
+        }
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.findPage(owner, null, null, 3, null)).thenReturn(fetched);
+
+        JournalEntryPage page = journalEntryService.findPageForUser(username, null, 2);
+
+        assertEquals(2, page.getEntries().size());
+        JournalCursor next = JournalCursor.decode(page.getNextCursor());
+        assertEquals(fetched.get(1).getId(), next.getId());
+        assertEquals(fetched.get(1).getDate(), next.getDate());
+    }
+
+    @Test
+    public void testFindPageForUser_LastPageHasNoCursor() {
+        String username = "testuser";
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+        JournalEntry entry = new JournalEntry();
+        entry.setId(new ObjectId());
+        entry.setDate(LocalDateTime.now());
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.findPage(owner, null, null, 21, null)).thenReturn(List.of(entry));
+
+        JournalEntryPage page = journalEntryService.findPageForUser(username, null, 20);
+
+        assertEquals(1, page.getEntries().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testSearchPageForUser_PassesFilterToRepository() {
+        String username = "testuser";
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+        LocalDateTime now = LocalDateTime.now();
+        JournalEntryFilter filter = new JournalEntryFilter(now.minusDays(7), now, Sentiment.HAPPY);
+        JournalEntry entry = new JournalEntry();
+        entry.setId(new ObjectId());
+        entry.setDate(now.minusDays(1));
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.findPage(owner, filter, null, 11, null)).thenReturn(List.of(entry));
+
+        JournalEntryPage page = journalEntryService.searchPageForUser(username, filter, null, 10, null);
+
+        assertEquals(1, page.getEntries().size());
+        assertNull(page.getNextCursor());
     }
 
     @Test
@@ -62,40 +152,158 @@ public class JournalEntryServiceTests {
     }
 
 
+    @Test
+    public void testUpdateOwnedById_OnlySetsProvidedFields() {
+        String username = "testuser";
+        ObjectId entryId = new ObjectId();
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+        JournalEntry changes = new JournalEntry();
+        changes.setTitle("New Title");
+        changes.setContent("");
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        JournalEntry previous = new JournalEntry();
+        previous.setOwnerId(owner.getUserId());
+        when(journalEntryRepositoryImpl.updateOwnedReturningPrevious(eq(entryId), eq(owner), any(Update.class)))
+                .thenReturn(previous);
+        when(journalEntryRepositoryImpl.findOwned(entryId, owner, null)).thenReturn(new JournalEntry());
+
+        assertTrue(journalEntryService.updateOwnedById(entryId, username, changes).isPresent());
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(journalEntryRepositoryImpl).updateOwnedReturningPrevious(eq(entryId), eq(owner), update.capture());
+        Document set = (Document) update.getValue().getUpdateObject().get("$set");
+        assertEquals("New Title", set.get("title"));
+        assertFalse(set.containsKey("content"));
+        assertFalse(set.containsKey("sentiment"));
+    }
+
+    @Test
+    public void testUpdateOwnedById_LegacyEntryStartsCounting() {
+        String username = "testuser";
+        ObjectId entryId = new ObjectId();
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of(entryId));
+        LocalDateTime date = LocalDateTime.now().minusDays(1);
+        JournalEntry previous = new JournalEntry();
+        previous.setDate(date);
+        previous.setSentiment(Sentiment.SAD);
+        JournalEntry changes = new JournalEntry();
+        changes.setTitle("New Title");
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.updateOwnedReturningPrevious(eq(entryId), eq(owner), any(Update.class)))
+                .thenReturn(previous);
+        when(journalEntryRepositoryImpl.findOwned(entryId, owner, null)).thenReturn(new JournalEntry());
+
+        assertTrue(journalEntryService.updateOwnedById(entryId, username, changes).isPresent());
+
+        ArgumentCaptor<SentimentRollupDelta> delta = ArgumentCaptor.forClass(SentimentRollupDelta.class);
+        verify(sentimentRollupService).record(eq(owner.getUserId()), delta.capture());
+        Map<LocalDate, Map<Sentiment, Long>> days = new HashMap<>();
+        delta.getValue().forEachDay(days::put);
+        assertEquals(Map.of(date.toLocalDate(), Map.of(Sentiment.SAD, 1L)), days);
+    }
+
+    @Test
+    public void testPatchOwnedById_ConflictWhenVersionMoved() {
+        String username = "testuser";
+        ObjectId entryId = new ObjectId();
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+        JournalEntryPatch patch = new JournalEntryPatch("Renamed", null, null, 3L);
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.updateOwnedIfVersion(eq(entryId), eq(owner), eq(3L), any(Update.class)))
+                .thenReturn(null);
+        when(journalEntryRepositoryImpl.existsOwned(entryId, owner)).thenReturn(true);
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> journalEntryService.patchOwnedById(entryId, username, patch));
+    }
+
+    @Test
+    public void testPatchOwnedById_MovesSentimentCounterAndReturnsNewVersion() {
+        String username = "testuser";
+        ObjectId entryId = new ObjectId();
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+        LocalDateTime date = LocalDateTime.now().minusDays(2);
+        JournalEntry previous = new JournalEntry();
+        previous.setId(entryId);
+        previous.setDate(date);
+        previous.setOwnerId(owner.getUserId());
+        previous.setSentiment(Sentiment.SAD);
+        previous.setVersion(3L);
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.updateOwnedIfVersion(eq(entryId), eq(owner), eq(3L), any(Update.class)))
+                .thenReturn(previous);
+
+        JournalEntry updated = journalEntryService.patchOwnedById(entryId, username,
+                new JournalEntryPatch(null, null, Sentiment.HAPPY, 3L)).orElseThrow();
+
+        assertEquals(4L, updated.getVersion());
+        ArgumentCaptor<SentimentRollupDelta> delta = ArgumentCaptor.forClass(SentimentRollupDelta.class);
+        verify(sentimentRollupService).record(eq(owner.getUserId()), delta.capture());
+        Map<LocalDate, Map<Sentiment, Long>> days = new HashMap<>();
+        delta.getValue().forEachDay(days::put);
+        assertEquals(Map.of(date.toLocalDate(), Map.of(Sentiment.SAD, -1L, Sentiment.HAPPY, 1L)), days);
+    }
+
+    @Test
+    public void testPatchOwnedById_NotFound() {
+        String username = "testuser";
+        ObjectId entryId = new ObjectId();
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.existsOwned(entryId, owner)).thenReturn(false);
+
+        assertTrue(journalEntryService.patchOwnedById(entryId, username,
+                new JournalEntryPatch(null, null, null, 0L)).isEmpty());
+    }
+
     @Test
     public void testDeleteById_Success() {
         String username = "testuser";
         ObjectId entryId = new ObjectId();
-        User user = new User();
-        user.setUserName(username);
-        JournalEntry entry = new JournalEntry();
-        entry.setId(entryId);
-        user.setJournalEntries(new ArrayList<>());
-        user.getJournalEntries().add(entry);
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
 
-        when(userService.findByUserName(username)).thenReturn(user);
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.deleteOwned(entryId, owner)).thenReturn(new JournalEntry());
 
         boolean result = journalEntryService.deleteById(entryId, username);
 
         assertTrue(result);
-        verify(userService, times(1)).saveUser(user);
-        verify(journalEntryRepository, times(1)).deleteById(entryId);
+        verify(userService, never()).saveUser(any());
+        verify(userService, never()).removeLegacyEntryRef(any(), any());
+    }
+
+    @Test
+    public void testDeleteById_LegacyEntryAlsoDropsReference() {
+        String username = "testuser";
+        ObjectId entryId = new ObjectId();
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of(entryId));
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.deleteOwned(entryId, owner)).thenReturn(new JournalEntry());
+
+        assertTrue(journalEntryService.deleteById(entryId, username));
+        verify(userService, times(1)).removeLegacyEntryRef(owner.getUserId(), entryId);
+        // never counted, so nothing to take out of the rollups
+        verify(sentimentRollupService, never()).record(any(), any());
     }
 
     @Test
     public void testDeleteById_Failure_EntryNotFound() {
         String username = "testuser";
         ObjectId entryId = new ObjectId();
-        User user = new User();
-        user.setUserName(username);
-        user.setJournalEntries(new ArrayList<>());
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
 
-        when(userService.findByUserName(username)).thenReturn(user);
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.deleteOwned(entryId, owner)).thenReturn(null);
 
         boolean result = journalEntryService.deleteById(entryId, username);
 
         assertFalse(result);
-        verify(userService, never()).saveUser(user);
-        verify(journalEntryRepository, never()).deleteById(entryId);
+        verify(userService, never()).removeLegacyEntryRef(any(), any());
     }
 }
@@ -0,0 +1,87 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.entity.JournalEntry;
+import com.developmentprep.journalApp.enums.ExportFormat;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JournalExportServiceTests {
+
+    @Mock
+    private JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private SentimentRollupService sentimentRollupService;
+
+    @Mock
+    private SentimentClassificationService sentimentClassificationService;
+
+    private JournalExportService journalExportService;
+
+    private JournalOwner owner;
+
+    @BeforeEach
+    void setUp() {
+        journalExportService = new JournalExportService(journalEntryRepositoryImpl, userService,
+                sentimentRollupService, sentimentClassificationService,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new ObjectMapper().findAndRegisterModules());
+        owner = new JournalOwner(new ObjectId(), List.of());
+        when(userService.findJournalOwner("testuser")).thenReturn(owner);
+    }
+
+    @Test
+    public void testRestore_FailedRecountDoesNotHideRestoreError() {
+        DataAccessResourceFailureException writeError = new DataAccessResourceFailureException("mongo down");
+        IllegalStateException recountError = new IllegalStateException("still down");
+        when(journalEntryRepositoryImpl.upsertAllOwned(anyList(), eq(owner))).thenThrow(writeError);
+        doThrow(recountError).when(sentimentRollupService).rebuildOwner(owner.getUserId());
+
+        DataAccessResourceFailureException thrown = assertThrows(DataAccessResourceFailureException.class,
+                () -> journalExportService.restore("testuser", ExportFormat.NDJSON, ndjson("{\"title\":\"Walk\"}")));
+
+        assertSame(writeError, thrown);
+        assertArrayEquals(new Throwable[] {recountError}, thrown.getSuppressed());
+    }
+
+    @Test
+    public void testRestore_ClassifiesUnclassifiedEntriesAfterRecount() throws Exception {
+        when(journalEntryRepositoryImpl.upsertAllOwned(anyList(), eq(owner)))
+                .thenAnswer(invocation -> List.copyOf(invocation.<List<JournalEntry>>getArgument(0)));
+
+        journalExportService.restore("testuser", ExportFormat.NDJSON,
+                ndjson("{\"title\":\"Walk\"}", "{\"title\":\"Run\",\"sentiment\":\"HAPPY\"}"));
+
+        InOrder inOrder = inOrder(sentimentRollupService, sentimentClassificationService);
+        inOrder.verify(sentimentRollupService).rebuildOwner(owner.getUserId());
+        inOrder.verify(sentimentClassificationService).classifyLater(argThat(entry -> "Walk".equals(entry.getTitle())));
+        verifyNoMoreInteractions(sentimentClassificationService);
+    }
+
+    private static InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,79 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.dto.JournalChanges;
+import com.developmentprep.journalApp.entity.JournalEntry;
+import com.developmentprep.journalApp.entity.JournalTombstone;
+import com.developmentprep.journalApp.model.JournalChangeToken;
+import com.developmentprep.journalApp.model.JournalOwner;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class JournalSyncServiceTests {
+
+    @Mock
+    private JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+
+    @Mock
+    private UserService userService;
+
+    @InjectMocks
+    private JournalSyncService journalSyncService;
+
+    @Test
+    public void testChangesSince_ContinuesFromLastChangeWhenMoreExist() {
+        String username = "testuser";
+        JournalOwner owner = new JournalOwner(new ObjectId(), List.of());
+        LocalDateTime since = LocalDateTime.now().minusHours(1);
+        JournalChangeToken token = JournalChangeToken.at(since);
+        List<JournalEntry> changed = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            JournalEntry entry = new JournalEntry();
+            entry.setId(new ObjectId());
+            entry.setUpdatedAt(since.plusMinutes(i));
+            changed.add(entry);
+        }
+        ObjectId deletedId = new ObjectId();
+
+        when(userService.findJournalOwner(username)).thenReturn(owner);
+        when(journalEntryRepositoryImpl.findChangedSince(owner, since, null, 3)).thenReturn(changed);
+        when(journalEntryRepositoryImpl.findDeletedSince(owner, since, null, 3))
+                .thenReturn(List.of(new JournalTombstone(deletedId, owner.getUserId(), since.plusMinutes(5))));
+
+        JournalChanges changes = journalSyncService.changesSince(username, token, 2).orElseThrow();
+
+        assertEquals(2, changes.getChanged().size());
+        assertEquals(List.of(deletedId.toHexString()), changes.getDeleted());
+        assertTrue(changes.isHasMore());
+        JournalChangeToken next = JournalChangeToken.decode(changes.getToken());
+        assertEquals(changed.get(1).getUpdatedAt(), next.getEntriesAfter());
+        assertEquals(changed.get(1).getId(), next.getEntriesAfterId());
+        // deletes were caught up, so that side moves to the current time with no id
+        assertNull(next.getDeletesAfterId());
+        assertTrue(next.getDeletesAfter().isAfter(since));
+    }
+
+    @Test
+    public void testChangesSince_ExpiredTokenIsRejected() {
+        JournalChangeToken token = JournalChangeToken.at(
+                LocalDateTime.now().minus(JournalTombstone.RETENTION).minusDays(1));
+
+        Optional<JournalChanges> changes = journalSyncService.changesSince("testuser", token, 10);
+
+        assertTrue(changes.isEmpty());
+        verifyNoInteractions(journalEntryRepositoryImpl);
+    }
+}
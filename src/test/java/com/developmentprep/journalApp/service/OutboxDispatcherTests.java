@@ -0,0 +1,101 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.entity.OutboxEmail;
+import com.developmentprep.journalApp.enums.OutboxStatus;
+import com.developmentprep.journalApp.repository.OutboxRepositoryImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxDispatcherTests {
+
+    @Mock
+    private OutboxRepositoryImpl outboxRepositoryImpl;
+
+    @Mock
+    private EmailService emailService;
+
+    private OutboxDispatcher outboxDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        outboxDispatcher = new OutboxDispatcher(outboxRepositoryImpl, emailService);
+        ReflectionTestUtils.setField(outboxDispatcher, "batchSize", 3);
+        ReflectionTestUtils.setField(outboxDispatcher, "maxBatchesPerPoll", 5);
+        ReflectionTestUtils.setField(outboxDispatcher, "leaseMs", 60000L);
+    }
+
+    @Test
+    public void testDrain_SendsRetriesAndDeadLetters() {
+        OutboxEmail ok = email("ok@example.com", 0);
+        OutboxEmail flaky = email("flaky@example.com", 1);
+        OutboxEmail hopeless = email("hopeless@example.com", OutboxDispatcher.MAX_ATTEMPTS - 1);
+        when(outboxRepositoryImpl.claimDue(eq(3), any())).thenReturn(List.of(ok, flaky, hopeless), List.of());
+        when(emailService.sendMailAsync(isNull(), anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("status 503")))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("status 400")));
+
+        assertEquals(3, outboxDispatcher.drain());
+
+        // a full batch is followed by another claim, which finds nothing left
+        verify(outboxRepositoryImpl, times(2)).claimDue(eq(3), any());
+        verify(outboxRepositoryImpl).saveOutcomes(List.of(ok, flaky, hopeless));
+        assertEquals(OutboxStatus.SENT, ok.getStatus());
+        assertNotNull(ok.getExpireAt());
+        assertEquals(OutboxStatus.PENDING, flaky.getStatus());
+        assertEquals(2, flaky.getAttempts());
+        // second failure: twice the first delay of 30 seconds
+        assertTrue(flaky.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(50)));
+        assertTrue(flaky.getLastError().contains("503"));
+        assertEquals(OutboxStatus.DEAD, hopeless.getStatus());
+        assertEquals(1, outboxDispatcher.getSent());
+        assertEquals(1, outboxDispatcher.getRetried());
+        assertEquals(1, outboxDispatcher.getDeadLettered());
+    }
+
+    @Test
+    public void testDrain_RejectedSendsAreDeferredAndStopThePoll() {
+        OutboxEmail ok = email("ok@example.com", 0);
+        OutboxEmail refused = email("refused@example.com", 2);
+        OutboxEmail alsoRefused = email("also-refused@example.com", 0);
+        when(outboxRepositoryImpl.claimDue(eq(3), any())).thenReturn(List.of(ok, refused, alsoRefused));
+        when(emailService.sendMailAsync(isNull(), anyString(), anyString(), anyString()))
+                .thenReturn(CompletableFuture.completedFuture(null))
+                .thenReturn(CompletableFuture.failedFuture(new TaskRejectedException("queue full")));
+
+        assertEquals(1, outboxDispatcher.drain());
+
+        // the sender is saturated, so no second batch is claimed this poll
+        verify(outboxRepositoryImpl, times(1)).claimDue(eq(3), any());
+        verify(outboxRepositoryImpl).saveOutcomes(List.of(ok, refused, alsoRefused));
+        assertEquals(OutboxStatus.SENT, ok.getStatus());
+        assertEquals(OutboxStatus.PENDING, refused.getStatus());
+        assertEquals(2, refused.getAttempts());
+        assertNull(refused.getLastError());
+        assertFalse(refused.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals(0, alsoRefused.getAttempts());
+        assertEquals(2, outboxDispatcher.getDeferred());
+        assertEquals(0, outboxDispatcher.getRetried());
+    }
+
+    private static OutboxEmail email(String to, int attempts) {
+        OutboxEmail email = OutboxService.email(to, null, to, "Subject", "Body");
+        email.setStatus(OutboxStatus.PROCESSING);
+        email.setAttempts(attempts);
+        return email;
+    }
+}
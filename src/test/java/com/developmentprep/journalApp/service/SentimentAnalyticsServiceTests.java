@@ -0,0 +1,70 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.cache.TypedCache;
+import com.developmentprep.journalApp.dto.SentimentAnalytics;
+import com.developmentprep.journalApp.repository.JournalEntryRepositoryImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SentimentAnalyticsServiceTests {
+
+    @Mock
+    private JournalEntryRepositoryImpl journalEntryRepositoryImpl;
+
+    @Mock
+    private RedisService redisService;
+
+    @Mock
+    private TypedCache<SentimentAnalytics> cache;
+
+    private SentimentAnalyticsService sentimentAnalyticsService;
+
+    @BeforeEach
+    void setUp() {
+        when(redisService.cache("sentiment_analytics_", SentimentAnalytics.class)).thenReturn(cache);
+        sentimentAnalyticsService = new SentimentAnalyticsService(journalEntryRepositoryImpl, redisService);
+    }
+
+    @Test
+    public void testAnalytics_CachedWindowSkipsAggregation() {
+        LocalDate to = LocalDate.of(2026, 3, 31);
+        LocalDate from = to.minusDays(29);
+        SentimentAnalytics cached = new SentimentAnalytics(from, to, 4, 2, Map.of(), List.of());
+        when(cache.get("2026-03-02_2026-03-31")).thenReturn(cached);
+
+        assertSame(cached, sentimentAnalyticsService.analytics(from, to));
+        verifyNoInteractions(journalEntryRepositoryImpl);
+    }
+
+    @Test
+    public void testAnalytics_MissIsComputedAndCached() {
+        LocalDate day = LocalDate.of(2026, 3, 31);
+        SentimentAnalytics computed = new SentimentAnalytics(day, day, 0, 0, Map.of(), List.of());
+        when(journalEntryRepositoryImpl.sentimentAnalytics(day, day)).thenReturn(computed);
+
+        assertSame(computed, sentimentAnalyticsService.analytics(day, day));
+        verify(cache).set(eq("2026-03-31_2026-03-31"), same(computed), anyLong());
+    }
+
+    @Test
+    public void testAnalytics_RejectsTooLongWindow() {
+        LocalDate to = LocalDate.of(2026, 3, 31);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> sentimentAnalyticsService.analytics(to.minusDays(SentimentAnalyticsService.MAX_DAYS), to));
+        assertDoesNotThrow(
+                () -> sentimentAnalyticsService.analytics(to.minusDays(SentimentAnalyticsService.MAX_DAYS - 1), to));
+    }
+}
@@ -0,0 +1,59 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.entity.OutboxEmail;
+import com.developmentprep.journalApp.model.SentimentData;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SentimentConsumerServiceTests {
+
+    @Mock
+    private OutboxService outboxService;
+
+    @InjectMocks
+    private SentimentConsumerService sentimentConsumerService;
+
+    @Test
+    public void testConsume_QueuesBatchUnderEmailAndWeekIds() {
+        when(outboxService.enqueueEmailsOnce(anyList())).thenReturn(1);
+        long sunday = LocalDate.of(2026, 3, 29).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        sentimentConsumerService.consume(List.of(record(0, "One@example.com", "2026-03-29", 0),
+                record(1, "two@example.com", null, sunday + 3600_000L)));
+
+        ArgumentCaptor<List<OutboxEmail>> queued = ArgumentCaptor.forClass(List.class);
+        verify(outboxService).enqueueEmailsOnce(queued.capture());
+        List<OutboxEmail> emails = queued.getValue();
+        assertEquals(2, emails.size());
+        assertEquals("weekly-sentiment:one@example.com:2026-03-29", emails.get(0).getId());
+        assertEquals("One@example.com", emails.get(0).getTo());
+        assertEquals(WeeklySentimentPublisher.SUBJECT, emails.get(0).getSubject());
+        // a record without a week belongs to the week it was published in
+        assertEquals("weekly-sentiment:two@example.com:2026-03-29", emails.get(1).getId());
+    }
+
+    private static ConsumerRecord<String, SentimentData> record(long offset, String email, String week,
+            long timestamp) {
+        SentimentData data = SentimentData.builder().email(email).sentiment("Sentiment for last 7 days HAPPY")
+                .week(week).build();
+        return new ConsumerRecord<>(WeeklySentimentPublisher.TOPIC, 0, offset, timestamp,
+                TimestampType.CREATE_TIME, 0, 0, email, data, new RecordHeaders(), Optional.empty());
+    }
+}
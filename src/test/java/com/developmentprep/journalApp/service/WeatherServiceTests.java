@@ -0,0 +1,224 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.api.response.WeatherResponse;
+import com.developmentprep.journalApp.cache.AppCache;
+import com.developmentprep.journalApp.cache.LocalCache;
+import com.developmentprep.journalApp.cache.TypedCache;
+import com.developmentprep.journalApp.model.CachedWeather;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WeatherServiceTests {
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    @Mock
+    private RedisService redisService;
+
+    @Mock
+    private TypedCache<CachedWeather> redisCache;
+
+    @Mock
+    private ThreadPoolTaskExecutor weatherRefreshExecutor;
+
+    private ThreadPoolTaskExecutor weatherExecutor;
+
+    private WeatherService weatherService;
+
+    @BeforeEach
+    void setUp() {
+        AppCache appCache = new AppCache();
+        appCache.appCache = new HashMap<>();
+        appCache.appCache.put(AppCache.keys.WEATHER_API.toString(), "https://weather.test/?city=<city>&key=<apiKey>");
+        when(redisService.cache("weather_of_", CachedWeather.class)).thenReturn(redisCache);
+        // refreshes run on the calling thread
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(weatherRefreshExecutor).execute(any(Runnable.class));
+        weatherExecutor = new ThreadPoolTaskExecutor();
+        weatherExecutor.setCorePoolSize(4);
+        weatherExecutor.setMaxPoolSize(4);
+        weatherExecutor.initialize();
+        weatherService = new WeatherService(restTemplate, appCache, redisService, weatherExecutor,
+                weatherRefreshExecutor, 100, 60);
+        ReflectionTestUtils.setField(weatherService, "apiKey", "key");
+        ReflectionTestUtils.setField(weatherService, "softTtlSeconds", 240L);
+        ReflectionTestUtils.setField(weatherService, "hardTtlSeconds", 300L);
+        ReflectionTestUtils.setField(weatherService, "refreshEnabled", true);
+        ReflectionTestUtils.setField(weatherService, "refreshIntervalMs", 30000L);
+        ReflectionTestUtils.setField(weatherService, "refreshTopN", 2);
+        ReflectionTestUtils.setField(weatherService, "refreshMinRequests", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        weatherExecutor.shutdown();
+    }
+
+    @Test
+    public void testGetWeatherWithin_SlowLookupIsCutOffAndStillCached() throws Exception {
+        WeatherResponse slow = new WeatherResponse();
+        CountDownLatch release = new CountDownLatch(1);
+        when(redisCache.get("Delhi")).thenReturn(null);
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), eq(WeatherResponse.class)))
+                .thenAnswer(invocation -> {
+                    release.await(5, TimeUnit.SECONDS);
+                    return ResponseEntity.ok(slow);
+                });
+
+        long start = System.nanoTime();
+        assertNull(weatherService.getWeatherWithin("Delhi", 50).get(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, weatherService.stats().getOverBudget());
+
+        // the lookup carries on and fills the cache for the next greeting
+        release.countDown();
+        verify(redisCache, timeout(2000)).set(eq("Delhi"), any(), eq(300L));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        CompletableFuture<WeatherResponse> next = weatherService.getWeatherWithin("Delhi", 50);
+        while (!next.isDone() || next.get() == null) {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+            next = weatherService.getWeatherWithin("Delhi", 50);
+        }
+        assertSame(slow, next.get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetWeatherWithin_ExpiredLocalEntryIsFetchedOffTheCallingThread() throws Exception {
+        LocalCache<CachedWeather> localCache = (LocalCache<CachedWeather>) ReflectionTestUtils.getField(
+                weatherService, "localCache");
+        localCache.put("Delhi", new CachedWeather(new WeatherResponse(), secondsAgo(301)));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), eq(WeatherResponse.class)))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(500);
+                    return ResponseEntity.ok(new WeatherResponse());
+                });
+
+        long start = System.nanoTime();
+        CompletableFuture<WeatherResponse> weather = weatherService.getWeatherWithin("Delhi", 50);
+
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(300));
+        assertNull(weather.get(2, TimeUnit.SECONDS));
+        assertEquals(1, weatherService.stats().getOverBudget());
+    }
+
+    @Test
+    public void testGetWeatherForAll_OneMgetAndParallelFetches() throws Exception {
+        WeatherResponse delhi = new WeatherResponse();
+        when(redisCache.getAll(List.of("Delhi", "Pune", "Goa")))
+                .thenReturn(Map.of("Delhi", new CachedWeather(delhi, secondsAgo(10))));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), eq(WeatherResponse.class)))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(300);
+                    return ResponseEntity.ok(new WeatherResponse());
+                });
+
+        long start = System.nanoTime();
+        Map<String, WeatherResponse> weather = weatherService
+                .getWeatherForAll(List.of("Delhi", "Pune", "Goa", "Pune"), 2000).get(2, TimeUnit.SECONDS);
+
+        // the two fetches overlap
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(550));
+        assertEquals(List.of("Delhi", "Pune", "Goa"), List.copyOf(weather.keySet()));
+        assertSame(delhi, weather.get("Delhi"));
+        assertNotNull(weather.get("Pune"));
+        assertNotNull(weather.get("Goa"));
+        verify(redisCache, timeout(1000)).setAll(argThat(fetched -> fetched.keySet().equals(Set.of("Pune", "Goa"))),
+                eq(300L));
+        verify(redisCache, never()).get(anyString());
+        verify(redisCache, never()).set(anyString(), any(), anyLong());
+    }
+
+    @Test
+    public void testGetWeather_StaleValueIsServedAndRefreshed() {
+        WeatherResponse stale = new WeatherResponse();
+        WeatherResponse fresh = new WeatherResponse();
+        when(redisCache.get("Delhi")).thenReturn(new CachedWeather(stale, secondsAgo(250)));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), eq(WeatherResponse.class)))
+                .thenReturn(ResponseEntity.ok(fresh));
+
+        assertSame(stale, weatherService.getWeather("Delhi"));
+        assertSame(fresh, weatherService.getWeather("Delhi"));
+
+        verify(restTemplate, times(1)).exchange(anyString(), any(HttpMethod.class), any(), eq(WeatherResponse.class));
+        verify(redisCache).set(eq("Delhi"), argThat(cached -> cached.getWeather() == fresh), eq(300L));
+        assertEquals(1, weatherService.stats().getStaleServed());
+        assertEquals(1, weatherService.stats().getRefreshes());
+    }
+
+    @Test
+    public void testGetWeather_ExpiredPastHardTtlWaitsForFetch() {
+        WeatherResponse fresh = new WeatherResponse();
+        when(redisCache.get("Pune")).thenReturn(new CachedWeather(new WeatherResponse(), secondsAgo(301)));
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), eq(WeatherResponse.class)))
+                .thenReturn(ResponseEntity.ok(fresh));
+
+        assertSame(fresh, weatherService.getWeather("Pune"));
+        assertEquals(0, weatherService.stats().getStaleServed());
+    }
+
+    @Test
+    public void testRefreshHotCities_RefreshesMostRequestedOnly() {
+        when(redisCache.get(anyString())).thenAnswer(invocation -> new CachedWeather(new WeatherResponse(),
+                secondsAgo(220)));
+        for (int i = 0; i < 5; i++) {
+            weatherService.getWeather("Delhi");
+        }
+        weatherService.getWeather("Pune");
+        weatherService.getWeather("Pune");
+        weatherService.getWeather("Goa");
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), isNull(), eq(WeatherResponse.class)))
+                .thenReturn(ResponseEntity.ok(new WeatherResponse()));
+
+        assertEquals(List.of("Delhi", "Pune"), weatherService.hotCities());
+        weatherService.refreshHotCities();
+
+        // 220s old goes stale before the next run in 30s
+        verify(restTemplate).exchange(contains("city=Delhi"), any(HttpMethod.class), any(), eq(WeatherResponse.class));
+        verify(restTemplate).exchange(contains("city=Pune"), any(HttpMethod.class), any(), eq(WeatherResponse.class));
+        verify(restTemplate, never()).exchange(contains("city=Goa"), any(HttpMethod.class), any(),
+                eq(WeatherResponse.class));
+    }
+
+    @Test
+    public void testHotCities_LeavesOutCitiesRequestedOnce() {
+        when(redisCache.get(anyString())).thenAnswer(invocation -> new CachedWeather(new WeatherResponse(),
+                secondsAgo(10)));
+        ReflectionTestUtils.setField(weatherService, "refreshTopN", 20);
+        weatherService.getWeather("Delhi");
+        weatherService.getWeather("Delhi");
+        weatherService.getWeather("Goa");
+
+        assertEquals(List.of("Delhi"), weatherService.hotCities());
+    }
+
+    private static long secondsAgo(long seconds) {
+        return System.currentTimeMillis() - seconds * 1000;
+    }
+}
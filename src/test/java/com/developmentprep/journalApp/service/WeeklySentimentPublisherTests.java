@@ -0,0 +1,101 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.config.NodeIdentity;
+import com.developmentprep.journalApp.entity.WeeklySentimentRetry;
+import com.developmentprep.journalApp.model.SentimentData;
+import com.developmentprep.journalApp.repository.JobLeaseRepositoryImpl;
+import com.developmentprep.journalApp.repository.WeeklySentimentRetryRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WeeklySentimentPublisherTests {
+
+    @Mock
+    private ObjectProvider<KafkaTemplate<String, SentimentData>> kafkaTemplate;
+
+    @Mock
+    private KafkaTemplate<String, SentimentData> kafka;
+
+    @Mock
+    private WeeklySentimentRetryRepository weeklySentimentRetryRepository;
+
+    @Mock
+    private JobLeaseRepositoryImpl jobLeaseRepositoryImpl;
+
+    @Mock
+    private OutboxService outboxService;
+
+    private WeeklySentimentPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        when(kafkaTemplate.getIfAvailable()).thenReturn(kafka);
+        publisher = new WeeklySentimentPublisher(kafkaTemplate, weeklySentimentRetryRepository,
+                jobLeaseRepositoryImpl, outboxService, new NodeIdentity("node-a"), 1);
+    }
+
+    @Test
+    public void testPublish_FailedSendCompletesExceptionallyAndFreesItsSlot() throws Exception {
+        SentimentData data = SentimentData.builder().email("one@example.com").sentiment("HAPPY").build();
+        when(kafka.send(anyString(), anyString(), any(SentimentData.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        CompletableFuture<Void> failed = publisher.publish(data);
+        // only one send may be in flight; the failed one must have handed its slot back
+        CompletableFuture<Void> acked = CompletableFuture.supplyAsync(() -> publisher.publish(data))
+                .thenCompose(future -> future).orTimeout(5, TimeUnit.SECONDS);
+
+        assertTrue(failed.isCompletedExceptionally());
+        assertNull(acked.get());
+        verifyNoInteractions(outboxService);
+    }
+
+    @Test
+    public void testRetryDue_DeletesPublishedAndBacksOffFailed() {
+        WeeklySentimentRetry ok = retry("ok@example.com");
+        WeeklySentimentRetry stuck = retry("stuck@example.com");
+        when(jobLeaseRepositoryImpl.tryAcquire(anyString(), eq("node-a"), any())).thenReturn(true);
+        when(weeklySentimentRetryRepository.findByAttemptsLessThanAndNextAttemptAtLessThanEqualOrderByNextAttemptAtAsc(
+                eq(WeeklySentimentPublisher.MAX_ATTEMPTS), any(), any())).thenReturn(List.of(ok, stuck));
+        when(kafka.send(anyString(), eq("ok@example.com"), any(SentimentData.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+        when(kafka.send(anyString(), eq("stuck@example.com"), any(SentimentData.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertEquals(1, publisher.retryDue());
+
+        verify(weeklySentimentRetryRepository).deleteById(ok.getId());
+        verify(weeklySentimentRetryRepository).save(stuck);
+        assertEquals(1, stuck.getAttempts());
+        assertTrue(stuck.getNextAttemptAt().isAfter(LocalDateTime.now().plusMinutes(9)));
+        assertTrue(stuck.getLastError().contains("broker down"));
+        verify(jobLeaseRepositoryImpl).release(anyString(), eq("node-a"));
+    }
+
+    private static WeeklySentimentRetry retry(String email) {
+        WeeklySentimentRetry retry = new WeeklySentimentRetry();
+        retry.setId(new ObjectId().toHexString() + ":2026-03-29");
+        retry.setEmail(email);
+        retry.setSentiment("Sentiment for last 7 days HAPPY");
+        retry.setNextAttemptAt(LocalDateTime.now().minusMinutes(1));
+        return retry;
+    }
+}
@@ -0,0 +1,240 @@
+package com.developmentprep.journalApp.service;
+
+import com.developmentprep.journalApp.config.NodeIdentity;
+import com.developmentprep.journalApp.entity.JobCheckpoint;
+import com.developmentprep.journalApp.entity.JobChunk;
+import com.developmentprep.journalApp.entity.JobRun;
+import com.developmentprep.journalApp.entity.OutboxEmail;
+import com.developmentprep.journalApp.entity.WeeklySentimentMark;
+import com.developmentprep.journalApp.enums.JobRunStatus;
+import com.developmentprep.journalApp.enums.MarkStatus;
+import com.developmentprep.journalApp.enums.Sentiment;
+import com.developmentprep.journalApp.model.SentimentData;
+import com.developmentprep.journalApp.model.WeeklySentiment;
+import com.developmentprep.journalApp.repository.JobCheckpointRepository;
+import com.developmentprep.journalApp.repository.JobChunkRepositoryImpl;
+import com.developmentprep.journalApp.repository.JobLeaseRepositoryImpl;
+import com.developmentprep.journalApp.repository.JobRunRepository;
+import com.developmentprep.journalApp.repository.UserRepositoryImpl;
+import com.developmentprep.journalApp.repository.WeeklySentimentMarkRepositoryImpl;
+import com.developmentprep.journalApp.repository.WeeklySentimentRetryRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class WeeklySentimentServiceTests {
+
+    @Mock
+    private UserRepositoryImpl userRepositoryImpl;
+
+    @Mock
+    private JobCheckpointRepository jobCheckpointRepository;
+
+    @Mock
+    private JobChunkRepositoryImpl jobChunkRepositoryImpl;
+
+    @Mock
+    private JobLeaseRepositoryImpl jobLeaseRepositoryImpl;
+
+    @Mock
+    private JobRunRepository jobRunRepository;
+
+    @Mock
+    private WeeklySentimentMarkRepositoryImpl weeklySentimentMarkRepositoryImpl;
+
+    @Mock
+    private WeeklySentimentRetryRepository weeklySentimentRetryRepository;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private ObjectProvider<KafkaTemplate<String, SentimentData>> kafkaTemplate;
+
+    private ThreadPoolTaskExecutor executor;
+
+    private WeeklySentimentService weeklySentimentService;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.initialize();
+        WeeklySentimentPublisher publisher = new WeeklySentimentPublisher(kafkaTemplate,
+                weeklySentimentRetryRepository, jobLeaseRepositoryImpl, outboxService, new NodeIdentity("node-a"), 10);
+        weeklySentimentService = new WeeklySentimentService(userRepositoryImpl, jobCheckpointRepository,
+                jobChunkRepositoryImpl, jobLeaseRepositoryImpl, jobRunRepository, weeklySentimentMarkRepositoryImpl,
+                publisher, executor, new NodeIdentity("node-a"));
+        ReflectionTestUtils.setField(weeklySentimentService, "chunkSize", 2);
+        ReflectionTestUtils.setField(weeklySentimentService, "chunkLeaseMs", 600000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    public void testRun_PlansChunksThenClaimsAndProcessesThem() {
+        ObjectId u1 = new ObjectId();
+        ObjectId u2 = new ObjectId();
+        ObjectId u3 = new ObjectId();
+        when(jobCheckpointRepository.findById(anyString())).thenReturn(Optional.empty());
+        when(jobRunRepository.save(any(JobRun.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jobLeaseRepositoryImpl.tryAcquire(anyString(), eq("node-a"), any())).thenReturn(true);
+        JobChunk first = chunk(null, u2);
+        JobChunk second = chunk(u2, u3);
+        when(jobChunkRepositoryImpl.claimNext(anyString(), eq("node-a"), any(), anyInt()))
+                .thenReturn(first, second, null);
+        when(userRepositoryImpl.findSentimentUserIds(null, 2)).thenReturn(List.of(u1, u2));
+        when(userRepositoryImpl.findSentimentUserIds(u2, 2)).thenReturn(List.of(u3));
+        when(userRepositoryImpl.findSentimentUserIds(u3, 2)).thenReturn(List.of());
+        // both chunks count the seven days before the week's Sunday
+        LocalDate until = LocalDate.parse(WeeklySentimentService.currentWeek());
+        LocalDate from = until.minusDays(7);
+        when(userRepositoryImpl.streamWeeklySentiments(eq(from), eq(until), isNull(), eq(u2), anyInt()))
+                .thenReturn(Stream.of(new WeeklySentiment(u1, "one@example.com", Sentiment.HAPPY),
+                        new WeeklySentiment(u2, "two@example.com", Sentiment.SAD)));
+        when(userRepositoryImpl.streamWeeklySentiments(eq(from), eq(until), eq(u2), eq(u3), anyInt()))
+                .thenReturn(Stream.of(new WeeklySentiment(u3, "three@example.com", Sentiment.HAPPY)));
+        // u2 was already mailed by an earlier, interrupted run
+        doAnswer(invocation -> {
+            WeeklySentimentMark mark = invocation.getArgument(0);
+            if (mark.getUserId().equals(u2)) {
+                throw new DuplicateKeyException("already sent");
+            }
+            return null;
+        }).when(weeklySentimentMarkRepositoryImpl).insert(any(WeeklySentimentMark.class));
+
+        JobRun run = weeklySentimentService.run();
+
+        assertEquals(JobRunStatus.COMPLETED, run.getStatus());
+        assertEquals(2, run.getChunks());
+        assertEquals(3, run.getProcessed());
+        assertEquals(2, run.getSent());
+        assertEquals(1, run.getSkipped());
+        // without Kafka the records go straight into the outbox
+        ArgumentCaptor<List<OutboxEmail>> queued = ArgumentCaptor.forClass(List.class);
+        verify(outboxService, times(2)).enqueueEmailsOnce(queued.capture());
+        assertEquals(List.of("one@example.com", "three@example.com"), queued.getAllValues().stream()
+                .map(emails -> emails.get(0).getTo()).sorted().toList());
+
+        String week = WeeklySentimentService.currentWeek();
+        verify(weeklySentimentMarkRepositoryImpl).setStatus(List.of(WeeklySentimentMark.idFor(u1, week)),
+                MarkStatus.SENT);
+        verify(weeklySentimentMarkRepositoryImpl).setStatus(List.of(WeeklySentimentMark.idFor(u3, week)),
+                MarkStatus.SENT);
+
+        verify(jobChunkRepositoryImpl).addChunk(anyString(), isNull(), eq(u2));
+        verify(jobChunkRepositoryImpl).addChunk(anyString(), eq(u2), eq(u3));
+        verify(jobChunkRepositoryImpl).complete(first.getId(), "node-a", 2);
+        verify(jobChunkRepositoryImpl).complete(second.getId(), "node-a", 1);
+        verify(jobLeaseRepositoryImpl).release(anyString(), eq("node-a"));
+
+        ArgumentCaptor<JobCheckpoint> checkpoint = ArgumentCaptor.forClass(JobCheckpoint.class);
+        verify(jobCheckpointRepository, atLeastOnce()).save(checkpoint.capture());
+        JobCheckpoint last = checkpoint.getValue();
+        assertTrue(last.isCompleted());
+        assertEquals(u3, last.getLastProcessedId());
+        assertEquals(3, last.getProcessed());
+    }
+
+    @Test
+    public void testRun_CursorFailureStillRecordsStartedSends() {
+        ObjectId u1 = new ObjectId();
+        when(jobCheckpointRepository.findById(anyString())).thenReturn(Optional.of(completed()));
+        when(jobRunRepository.save(any(JobRun.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jobChunkRepositoryImpl.hasClaimable(anyString(), anyInt())).thenReturn(true);
+        JobChunk only = chunk(null, u1);
+        when(jobChunkRepositoryImpl.claimNext(anyString(), eq("node-a"), any(), anyInt()))
+                .thenReturn(only, (JobChunk) null);
+        Stream<WeeklySentiment> brokenCursor = Stream.concat(
+                Stream.of(new WeeklySentiment(u1, "one@example.com", Sentiment.HAPPY)),
+                Stream.<WeeklySentiment>generate(() -> {
+                    throw new DataAccessResourceFailureException("cursor not found");
+                }).limit(1));
+        when(userRepositoryImpl.streamWeeklySentiments(any(), any(), isNull(), eq(u1), anyInt()))
+                .thenReturn(brokenCursor);
+
+        JobRun run = weeklySentimentService.run();
+
+        // the record published before the cursor broke is recorded as sent, the chunk goes back for a retry
+        assertEquals(JobRunStatus.INCOMPLETE, run.getStatus());
+        assertEquals(1, run.getSent());
+        verify(weeklySentimentMarkRepositoryImpl).setStatus(
+                List.of(WeeklySentimentMark.idFor(u1, WeeklySentimentService.currentWeek())), MarkStatus.SENT);
+        verify(jobChunkRepositoryImpl).fail(eq(only), eq("node-a"), anyInt(), anyString());
+    }
+
+    @Test
+    public void testResumeIfIncomplete_GivesUpOnExhaustedChunks() {
+        String job = WeeklySentimentService.JOB_NAME + ":" + WeeklySentimentService.currentWeek();
+        when(jobCheckpointRepository.findById(job)).thenReturn(Optional.of(completed()));
+        when(jobChunkRepositoryImpl.failExhausted(job, 3)).thenReturn(1L);
+        // the only chunk left kept killing its workers, so once failed there is nothing to resume
+        when(jobChunkRepositoryImpl.hasClaimable(job, 3)).thenReturn(false);
+
+        assertNull(weeklySentimentService.resumeIfIncomplete());
+
+        verify(jobChunkRepositoryImpl).failExhausted(job, 3);
+        verify(jobChunkRepositoryImpl, never()).claimNext(anyString(), anyString(), any(), anyInt());
+        verifyNoInteractions(jobRunRepository);
+    }
+
+    @Test
+    public void testRepublishStalled_PublishesPendingMarksAgain() {
+        ObjectId u1 = new ObjectId();
+        WeeklySentimentMark stalled = WeeklySentimentMark.pending(u1, "2026-10-11", "one@example.com",
+                "Sentiment for last 7 days HAPPY");
+        when(jobLeaseRepositoryImpl.tryAcquire(eq(WeeklySentimentService.JOB_NAME + ":stalled"), eq("node-a"), any()))
+                .thenReturn(true);
+        when(weeklySentimentMarkRepositoryImpl.findPendingClaimedBefore(any(), anyInt()))
+                .thenReturn(List.of(stalled));
+
+        assertEquals(1, weeklySentimentService.republishStalled());
+
+        ArgumentCaptor<List<OutboxEmail>> queued = ArgumentCaptor.forClass(List.class);
+        verify(outboxService).enqueueEmailsOnce(queued.capture());
+        assertEquals(OutboxEmail.weeklySentimentId("one@example.com", "2026-10-11"),
+                queued.getValue().get(0).getId());
+        verify(weeklySentimentMarkRepositoryImpl).setStatus(List.of(stalled.getId()), MarkStatus.SENT);
+        verify(jobLeaseRepositoryImpl).release(WeeklySentimentService.JOB_NAME + ":stalled", "node-a");
+    }
+
+    private static JobCheckpoint completed() {
+        JobCheckpoint checkpoint = new JobCheckpoint("job");
+        checkpoint.setCompleted(true);
+        return checkpoint;
+    }
+
+    private static JobChunk chunk(ObjectId after, ObjectId upTo) {
+        JobChunk chunk = new JobChunk();
+        chunk.setId(new ObjectId());
+        chunk.setAfter(after);
+        chunk.setUpTo(upTo);
+        chunk.setAttempts(1);
+        return chunk;
+    }
+}
@@ -0,0 +1,54 @@
+package com.developmentprep.journalApp.utils;
+
+import com.developmentprep.journalApp.entity.JournalEntry;
+import com.developmentprep.journalApp.enums.Sentiment;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JournalBinaryCodecTests {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        JournalEntry full = new JournalEntry();
+        full.setId(new ObjectId());
+        full.setTitle("Sunday walk");
+        full.setContent("Long walk by the river — felt calm. ✓");
+        full.setDate(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+        full.setSentiment(Sentiment.GRATEFUL);
+
+        JournalEntry sparse = new JournalEntry();
+        sparse.setTitle("Only a title");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        JournalBinaryCodec.writeHeader(out);
+        JournalBinaryCodec.writeEntry(out, full);
+        JournalBinaryCodec.writeEntry(out, sparse);
+        JournalBinaryCodec.writeEnd(out);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        JournalBinaryCodec.readHeader(in);
+        JournalEntry first = JournalBinaryCodec.readEntry(in);
+        JournalEntry second = JournalBinaryCodec.readEntry(in);
+
+        assertEquals(full, first);
+        assertEquals(sparse, second);
+        assertNull(JournalBinaryCodec.readEntry(in));
+    }
+
+    @Test
+    public void testRejectsForeignInput() {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(new byte[]{'{', '"', 'a', '"', ':'}));
+        assertThrows(IOException.class, () -> JournalBinaryCodec.readHeader(in));
+    }
+}
@@ -0,0 +1,37 @@
+package com.developmentprep.journalApp.utils;
+
+import com.developmentprep.journalApp.enums.Sentiment;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SentimentClassifierTests {
+
+    @Test
+    public void testClassify_PicksStrongestSentiment() {
+        assertEquals(Sentiment.ANXIOUS, SentimentClassifier.classify("Exam week",
+                "So nervous about tomorrow. The deadline pressure keeps me worrying, but dinner was nice."));
+        assertEquals(Sentiment.GRATEFUL, SentimentClassifier.classify("Thankful",
+                "Friends helped me move. Really appreciate them."));
+        assertEquals(Sentiment.ANGRY, SentimentClassifier.classify(null, "FURIOUS at the landlord, he YELLED at me."));
+    }
+
+    @Test
+    public void testClassify_NegationCancelsWithinSentence() {
+        assertNull(SentimentClassifier.classify("Monday", "I am not very happy with it."));
+        assertEquals(Sentiment.HAPPY, SentimentClassifier.classify("Monday", "Not a bad start. Happy anyway!"));
+        assertEquals(Sentiment.SAD, SentimentClassifier.classify("Rough day", "I don’t feel happy. I feel sad."));
+    }
+
+    @Test
+    public void testClassify_MatchesPluralsAndTitleWeight() {
+        // "worries" is not in the lexicon, "hates" is found as "hate"; the title counts double
+        assertEquals(Sentiment.ANGRY, SentimentClassifier.classify("He hates me", "Feeling a bit tired."));
+    }
+
+    @Test
+    public void testClassify_NoSentimentWordsLeavesItUnclassified() {
+        assertNull(SentimentClassifier.classify("Groceries", "Milk, eggs, bread and 2 apples."));
+        assertNull(SentimentClassifier.classify(null, null));
+    }
+}